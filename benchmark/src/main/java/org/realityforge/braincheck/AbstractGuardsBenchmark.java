@@ -0,0 +1,111 @@
+package org.realityforge.braincheck;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.jspecify.annotations.Nullable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The guards benchmarked under each configuration.
+ * The configuration is supplied by the subclasses which fork the JVM with different settings as several
+ * settings are read once when the classes are initialized.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public abstract class AbstractGuardsBenchmark {
+    private static final Supplier<String> MESSAGE = () -> "Value is not positive";
+
+    /**
+     * A non-constant value so that the JIT can not fold the conditions.
+     */
+    @SuppressWarnings("FieldCanBeFinal")
+    private int _value = 42;
+
+    @Benchmark
+    public int invariant_pass() {
+        final int value = _value;
+        Guards.invariant(() -> value > 0, MESSAGE);
+        return value;
+    }
+
+    @Benchmark
+    public int invariant_passWithTemplate() {
+        final int value = _value;
+        Guards.invariant(value > 0, "Value %s is not positive", value);
+        return value;
+    }
+
+    @Benchmark
+    public int invariant_passFour() {
+        final int value = _value;
+        Guards.invariant(() -> value > 0, MESSAGE);
+        Guards.invariant(() -> value > 1, MESSAGE);
+        Guards.invariant(() -> value > 2, MESSAGE);
+        Guards.invariant(() -> value > 3, MESSAGE);
+        return value;
+    }
+
+    @Benchmark
+    public int invariants_passBatchOfFour() {
+        final int value = _value;
+        Guards.invariants()
+                .check(() -> value > 0, MESSAGE)
+                .check(() -> value > 1, MESSAGE)
+                .check(() -> value > 2, MESSAGE)
+                .check(() -> value > 3, MESSAGE)
+                .verify();
+        return value;
+    }
+
+    @Benchmark
+    @Nullable
+    public IllegalStateException invariant_fail() {
+        final int value = _value;
+        try {
+            Guards.invariant(() -> value < 0, MESSAGE);
+            return null;
+        } catch (final IllegalStateException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public int apiInvariant_pass() {
+        final int value = _value;
+        Guards.apiInvariant(() -> value > 0, MESSAGE);
+        return value;
+    }
+
+    @Benchmark
+    @Nullable
+    public IllegalStateException apiInvariant_fail() {
+        final int value = _value;
+        try {
+            Guards.apiInvariant(() -> value < 0, MESSAGE);
+            return null;
+        } catch (final IllegalStateException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    @Nullable
+    public IllegalStateException fail() {
+        try {
+            Guards.fail(MESSAGE);
+            return null;
+        } catch (final IllegalStateException e) {
+            return e;
+        }
+    }
+}
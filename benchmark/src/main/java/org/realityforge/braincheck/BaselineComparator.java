@@ -0,0 +1,162 @@
+package org.realityforge.braincheck;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import javax.json.Json;
+import javax.json.JsonArray;
+import javax.json.JsonNumber;
+import javax.json.JsonObject;
+import javax.json.JsonReader;
+import javax.json.JsonValue;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Compare the JSON results of a JMH run against a baseline produced by an earlier run.
+ * The benchmarks are expected to be run with the <code>gc</code> profiler so that the normalized allocation
+ * rate is available. A benchmark has regressed if the score is worse than the baseline by more than the
+ * threshold and the difference is larger than the combined error of the two scores, or if it allocates
+ * more per operation than the baseline.
+ *
+ * <p>Usage: <code>BaselineComparator baseline.json results.json [threshold]</code> where the threshold is
+ * the permitted relative slowdown and defaults to <code>0.1</code>. The process exits with a non-zero
+ * status if any benchmark has regressed.</p>
+ */
+public final class BaselineComparator {
+    private static final double DEFAULT_THRESHOLD = 0.1;
+    /**
+     * The permitted increase in bytes allocated per operation.
+     * The normalized allocation rate is noisy for benchmarks that do not allocate.
+     */
+    private static final double ALLOCATION_TOLERANCE = 1.0;
+
+    private BaselineComparator() {}
+
+    public static void main(final String[] args) throws IOException {
+        if (args.length < 2 || args.length > 3) {
+            System.err.println("Usage: BaselineComparator baseline.json results.json [threshold]");
+            System.exit(2);
+        }
+        final double threshold = 3 == args.length ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD;
+        final Map<String, Result> baseline = readResults(Paths.get(args[0]));
+        final Map<String, Result> results = readResults(Paths.get(args[1]));
+
+        int regressionCount = 0;
+        for (final Map.Entry<String, Result> entry : results.entrySet()) {
+            final String name = entry.getKey();
+            final Result result = entry.getValue();
+            final Result expected = baseline.get(name);
+            if (null == expected) {
+                System.out.println(String.format(Locale.ROOT, "NEW        %s: %s", name, result));
+            } else {
+                final boolean regressed = isSlower(expected, result, threshold) || allocatesMore(expected, result);
+                if (regressed) {
+                    regressionCount++;
+                }
+                System.out.println(String.format(
+                        Locale.ROOT, "%-10s %s: %s -> %s", regressed ? "REGRESSED" : "OK", name, expected, result));
+            }
+        }
+        for (final String name : baseline.keySet()) {
+            if (!results.containsKey(name)) {
+                System.out.println(String.format(Locale.ROOT, "MISSING    %s", name));
+            }
+        }
+        if (0 != regressionCount) {
+            System.err.println(regressionCount + " benchmark(s) regressed.");
+            System.exit(1);
+        }
+    }
+
+    private static boolean isSlower(final Result expected, final Result actual, final double threshold) {
+        final double difference = actual._score - expected._score;
+        return difference > expected._score * threshold && difference > expected._error + actual._error;
+    }
+
+    private static boolean allocatesMore(final Result expected, final Result actual) {
+        return null != expected._allocation
+                && null != actual._allocation
+                && actual._allocation > expected._allocation + ALLOCATION_TOLERANCE;
+    }
+
+    private static Map<String, Result> readResults(final Path path) throws IOException {
+        final JsonArray array;
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8);
+                JsonReader jsonReader = Json.createReader(reader)) {
+            array = jsonReader.readArray();
+        }
+        final Map<String, Result> results = new LinkedHashMap<>();
+        for (final JsonValue value : array) {
+            final JsonObject benchmark = (JsonObject) value;
+            final JsonObject primaryMetric = benchmark.getJsonObject("primaryMetric");
+            final Result result = new Result(
+                    getDouble(primaryMetric, "score"),
+                    getDouble(primaryMetric, "scoreError"),
+                    primaryMetric.getString("scoreUnit"),
+                    getAllocation(benchmark));
+            results.put(getName(benchmark), result);
+        }
+        return results;
+    }
+
+    private static String getName(final JsonObject benchmark) {
+        final StringBuilder sb = new StringBuilder(benchmark.getString("benchmark"));
+        final JsonObject params = benchmark.getJsonObject("params");
+        if (null != params) {
+            for (final Map.Entry<String, JsonValue> param : params.entrySet()) {
+                sb.append(':').append(param.getKey()).append('=').append(param.getValue());
+            }
+        }
+        return sb.toString();
+    }
+
+    @Nullable
+    private static Double getAllocation(final JsonObject benchmark) {
+        final JsonObject secondaryMetrics = benchmark.getJsonObject("secondaryMetrics");
+        if (null != secondaryMetrics) {
+            // Versions of JMH prior to 1.37 prefix the name of the metric with a middle dot
+            for (final String key : new String[] {"gc.alloc.rate.norm", "\u00B7gc.alloc.rate.norm"}) {
+                final JsonObject metric = secondaryMetrics.getJsonObject(key);
+                if (null != metric) {
+                    return getDouble(metric, "score");
+                }
+            }
+        }
+        return null;
+    }
+
+    private static double getDouble(final JsonObject object, final String key) {
+        final JsonValue value = object.get(key);
+        // JMH emits "NaN" as a string when the error can not be computed
+        return value instanceof JsonNumber ? ((JsonNumber) value).doubleValue() : Double.NaN;
+    }
+
+    private static final class Result {
+        private final double _score;
+        private final double _error;
+        private final String _unit;
+        @Nullable
+        private final Double _allocation;
+
+        Result(final double score, final double error, final String unit, @Nullable final Double allocation) {
+            _score = score;
+            _error = Double.isNaN(error) ? 0 : error;
+            _unit = unit;
+            _allocation = allocation;
+        }
+
+        @Override
+        public String toString() {
+            final String score = String.format(Locale.ROOT, "%.3f +- %.3f %s", _score, _error, _unit);
+            return null == _allocation
+                    ? score
+                    : score + String.format(Locale.ROOT, " (%.1f B/op)", _allocation);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package org.realityforge.braincheck;
+
+import org.openjdk.jmh.annotations.Fork;
+
+/**
+ * Benchmark the guards in the production environment where all checks are disabled.
+ * The guards are expected to be eliminated by the JIT.
+ */
+@Fork(value = 2, jvmArgsAppend = "-Dbraincheck.environment=production")
+public class ChecksDisabledBenchmark extends AbstractGuardsBenchmark {}
@@ -0,0 +1,9 @@
+package org.realityforge.braincheck;
+
+import org.openjdk.jmh.annotations.Fork;
+
+/**
+ * Benchmark the guards in the development environment where all checks are enabled.
+ */
+@Fork(value = 2, jvmArgsAppend = "-Dbraincheck.environment=development")
+public class ChecksEnabledBenchmark extends AbstractGuardsBenchmark {}
@@ -0,0 +1,32 @@
+package org.realityforge.braincheck;
+
+import org.jspecify.annotations.Nullable;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Benchmark the guards in the development environment with a guard listener installed.
+ * This includes the cost of rendering the message and capturing the stack trace for each guard.
+ */
+@Fork(value = 2, jvmArgsAppend = "-Dbraincheck.environment=development")
+public class ListenerInstalledBenchmark extends AbstractGuardsBenchmark {
+    /**
+     * The last message received so that the listener has an observable side effect.
+     */
+    @SuppressWarnings("unused")
+    @Nullable
+    private volatile String _lastMessage;
+
+    @Setup
+    public void setup() {
+        BrainCheckTestUtil.setOnGuardListener((type, message, stackTrace) -> {
+            _lastMessage = message;
+        });
+    }
+
+    @TearDown
+    public void tearDown() {
+        BrainCheckTestUtil.setOnGuardListener(null);
+    }
+}
@@ -0,0 +1,17 @@
+package org.realityforge.braincheck;
+
+import org.openjdk.jmh.annotations.Fork;
+
+/**
+ * Benchmark the guards in the production environment with checks enabled, verbose error messages disabled
+ * and stackless failures enabled. This reflects an application that handles failures in production.
+ */
+@Fork(
+        value = 2,
+        jvmArgsAppend = {
+            "-Dbraincheck.environment=production",
+            "-Dbraincheck.check_invariants=true",
+            "-Dbraincheck.check_api_invariants=true",
+            "-Dbraincheck.stackless_failures=true"
+        })
+public class StacklessFailuresBenchmark extends AbstractGuardsBenchmark {}
@@ -0,0 +1,4 @@
+@NullMarked
+package org.realityforge.braincheck;
+
+import org.jspecify.annotations.NullMarked;
@@ -0,0 +1,396 @@
+package org.realityforge.braincheck;
+
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * A guard listener that delivers guard events to another listener on a separate thread.
+ * Guard events are added to a bounded lock-free ring buffer by the guarding threads and a single consumer
+ * thread delivers them to the wrapped listener, so a slow listener does not stall the guarding threads.
+ * The {@link OverflowPolicy} determines what happens when the buffer is full and the number of dropped
+ * events is counted.
+ *
+ * <p>The <code>isInterestedIn(...)</code> methods of the wrapped listener are still invoked on the guarding
+ * thread, before the event is added to the buffer, and must be thread-safe. The <code>onGuard(...)</code> method
+ * of the wrapped listener is only ever invoked on the consumer thread.</p>
+ *
+ * <p>A guard triggered on the consumer thread, typically by the wrapped listener, is never blocked as the consumer
+ * can not drain the buffer while it waits. Such an event is dropped if the buffer is full regardless of the
+ * {@link OverflowPolicy}. Likewise {@link #flush()} and {@link #close()} do not wait for the consumer when invoked
+ * on the consumer thread.</p>
+ */
+@GwtIncompatible
+public final class AsyncGuardListener implements BrainCheckTestUtil.OnGuardListener, AutoCloseable {
+    /**
+     * The policy applied when a guard event is generated and the buffer is full or filling up.
+     */
+    public enum OverflowPolicy {
+        /**
+         * Drop the event if the buffer is full.
+         */
+        DROP,
+        /**
+         * Add only one in {@link #SAMPLE_RATE} events once the buffer is half full and drop the remainder.
+         * Drop the event if the buffer is full.
+         */
+        SAMPLE,
+        /**
+         * Block the guarding thread until there is space in the buffer.
+         * The thread parks with an exponential backoff while it waits. The event is dropped if the thread is
+         * interrupted while it waits or the event is generated on the consumer thread.
+         */
+        BLOCK
+    }
+
+    /**
+     * The rate at which events are sampled when the {@link OverflowPolicy#SAMPLE} policy is in effect.
+     */
+    public static final int SAMPLE_RATE = 8;
+    /**
+     * The maximum time that the consumer thread parks while waiting for events.
+     */
+    private static final long MAX_PARK_NANOS = 10_000_000L;
+    /**
+     * The time that a guarding thread initially parks while waiting for space in the buffer.
+     */
+    private static final long MIN_BLOCK_PARK_NANOS = 1_000L;
+    /**
+     * The maximum time that a guarding thread parks while waiting for space in the buffer.
+     */
+    private static final long MAX_BLOCK_PARK_NANOS = 1_000_000L;
+
+    private final BrainCheckTestUtil.OnGuardListener _listener;
+    private final OverflowPolicy _overflowPolicy;
+    private final RingBuffer _buffer;
+    private final LongAdder _droppedCount = new LongAdder();
+    private final LongAdder _listenerErrorCount = new LongAdder();
+    private final Thread _consumer;
+    /**
+     * The number of events that the consumer has delivered to the listener.
+     */
+    private final AtomicLong _deliveredCount = new AtomicLong();
+
+    private volatile boolean _consumerWaiting;
+    private volatile boolean _closed;
+
+    /**
+     * Create the listener and start the consumer thread.
+     *
+     * @param listener       the listener to deliver events to.
+     * @param capacity       the minimum capacity of the buffer. The capacity is rounded up to a power of two.
+     * @param overflowPolicy the policy applied when the buffer is full.
+     */
+    public AsyncGuardListener(
+            final BrainCheckTestUtil.OnGuardListener listener,
+            final int capacity,
+            final OverflowPolicy overflowPolicy) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive but was " + capacity);
+        }
+        _listener = Objects.requireNonNull(listener);
+        _overflowPolicy = Objects.requireNonNull(overflowPolicy);
+        _buffer = new RingBuffer(capacity);
+        _consumer = new Thread(this::consume, "braincheck-guard-listener");
+        _consumer.setDaemon(true);
+        _consumer.start();
+    }
+
+    /**
+     * Return the capacity of the buffer.
+     *
+     * @return the capacity of the buffer.
+     */
+    public int getCapacity() {
+        return _buffer.capacity();
+    }
+
+    /**
+     * Return the approximate number of events in the buffer.
+     *
+     * @return the approximate number of events in the buffer.
+     */
+    public int getSize() {
+        return _buffer.size();
+    }
+
+    /**
+     * Return the number of events dropped due to the overflow policy or because the listener was closed.
+     *
+     * @return the number of events dropped.
+     */
+    public long getDroppedCount() {
+        return _droppedCount.sum();
+    }
+
+    /**
+     * Return the number of events for which the wrapped listener generated an exception.
+     * Exceptions are counted and otherwise ignored so that a failing listener does not stop the consumer thread.
+     *
+     * @return the number of events for which the wrapped listener generated an exception.
+     */
+    public long getListenerErrorCount() {
+        return _listenerErrorCount.sum();
+    }
+
+    @Override
+    public boolean isInterestedIn(final BrainCheckTestUtil.GuardType type) {
+        return _listener.isInterestedIn(type);
+    }
+
+    @Override
+    public boolean isInterestedIn(final BrainCheckTestUtil.GuardType type, final String message) {
+        return _listener.isInterestedIn(type, message);
+    }
+
+    @Override
+    public boolean isInterestedIn(final BrainCheckTestUtil.GuardType type, final String key, final int code) {
+        return _listener.isInterestedIn(type, key, code);
+    }
+
+    @Override
+    public void onGuard(
+            final BrainCheckTestUtil.GuardType type, final String message, final StackTraceElement[] stackTrace) {
+        enqueue(type, null, 0, message, stackTrace);
+    }
+
+    @Override
+    public void onGuard(
+            final BrainCheckTestUtil.GuardType type,
+            final String key,
+            final int code,
+            final String message,
+            final StackTraceElement[] stackTrace) {
+        enqueue(type, key, code, message, stackTrace);
+    }
+
+    private void enqueue(
+            final BrainCheckTestUtil.GuardType type,
+            @Nullable final String key,
+            final int code,
+            final String message,
+            final StackTraceElement[] stackTrace) {
+        if (_closed || !shouldEnqueue()) {
+            _droppedCount.increment();
+            return;
+        }
+        final Event event = new Event(type, key, code, message, stackTrace);
+        boolean added = _buffer.offer(event);
+        if (!added && OverflowPolicy.BLOCK == _overflowPolicy && !isConsumerThread()) {
+            long parkNanos = MIN_BLOCK_PARK_NANOS;
+            while (!added && !_closed && !Thread.currentThread().isInterrupted()) {
+                wakeConsumer();
+                LockSupport.parkNanos(this, parkNanos);
+                parkNanos = Math.min(parkNanos * 2, MAX_BLOCK_PARK_NANOS);
+                added = _buffer.offer(event);
+            }
+        }
+        if (added) {
+            wakeConsumer();
+        } else {
+            _droppedCount.increment();
+        }
+    }
+
+    /**
+     * Block until every event added to the buffer before this method was invoked has been delivered.
+     * This returns immediately if invoked on the consumer thread.
+     */
+    public void flush() {
+        if (isConsumerThread()) {
+            return;
+        }
+        final long target = _buffer.getEnqueuedCount();
+        while (_deliveredCount.get() < target && _consumer.isAlive()) {
+            wakeConsumer();
+            LockSupport.parkNanos(100_000L);
+        }
+    }
+
+    /**
+     * Stop accepting events, deliver the events already in the buffer and stop the consumer thread.
+     * If the calling thread is interrupted then this method returns without waiting for the consumer
+     * thread to stop and the interrupt status of the thread is preserved. If invoked on the consumer thread then
+     * this method returns immediately and the consumer stops once the events in the buffer have been delivered.
+     */
+    @Override
+    public void close() {
+        _closed = true;
+        if (isConsumerThread()) {
+            return;
+        }
+        LockSupport.unpark(_consumer);
+        try {
+            _consumer.join();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean shouldEnqueue() {
+        return OverflowPolicy.SAMPLE != _overflowPolicy
+                || _buffer.size() < _buffer.capacity() / 2
+                || 0 == ThreadLocalRandom.current().nextInt(SAMPLE_RATE);
+    }
+
+    private boolean isConsumerThread() {
+        return Thread.currentThread() == _consumer;
+    }
+
+    private void wakeConsumer() {
+        if (_consumerWaiting) {
+            LockSupport.unpark(_consumer);
+        }
+    }
+
+    private void consume() {
+        while (true) {
+            final Event event = _buffer.poll();
+            if (null != event) {
+                deliver(event);
+            } else if (_closed) {
+                // Drain any events added by producers that raced with close()
+                Event remaining = _buffer.poll();
+                while (null != remaining) {
+                    deliver(remaining);
+                    remaining = _buffer.poll();
+                }
+                return;
+            } else {
+                _consumerWaiting = true;
+                // Recheck after publishing the flag so that a wake up from a producer is not missed
+                if (_buffer.isEmpty() && !_closed) {
+                    LockSupport.parkNanos(this, MAX_PARK_NANOS);
+                }
+                _consumerWaiting = false;
+            }
+        }
+    }
+
+    private void deliver(final Event event) {
+        try {
+            final String key = event._key;
+            if (null == key) {
+                _listener.onGuard(event._type, event._message, event._stackTrace);
+            } else {
+                _listener.onGuard(event._type, key, event._code, event._message, event._stackTrace);
+            }
+        } catch (final Throwable t) {
+            _listenerErrorCount.increment();
+        }
+        _deliveredCount.incrementAndGet();
+    }
+
+    private static final class Event {
+        private final BrainCheckTestUtil.GuardType _type;
+        /**
+         * The key of a coded guard or null if the guard is not coded.
+         */
+        @Nullable
+        private final String _key;
+
+        private final int _code;
+        private final String _message;
+        private final StackTraceElement[] _stackTrace;
+
+        Event(
+                final BrainCheckTestUtil.GuardType type,
+                @Nullable final String key,
+                final int code,
+                final String message,
+                final StackTraceElement[] stackTrace) {
+            _type = type;
+            _key = key;
+            _code = code;
+            _message = message;
+            _stackTrace = stackTrace;
+        }
+    }
+
+    /**
+     * A bounded multi-producer single-consumer ring buffer.
+     * Each slot has a sequence number that indicates whether the slot is available to producers or the consumer
+     * for a given lap of the buffer. Producers claim a position by incrementing the enqueue position and then
+     * publish the event by advancing the sequence of the slot, so producers never block one another and the
+     * consumer never blocks producers.
+     */
+    private static final class RingBuffer {
+        private final int _mask;
+        private final AtomicReferenceArray<Event> _events;
+        private final AtomicLongArray _sequences;
+        private final AtomicLong _enqueuePosition = new AtomicLong();
+        /**
+         * The dequeue position. Only modified by the consumer thread.
+         */
+        private volatile long _dequeuePosition;
+
+        RingBuffer(final int minimumCapacity) {
+            final int capacity = 1 << (32 - Integer.numberOfLeadingZeros(Math.max(1, minimumCapacity - 1)));
+            _mask = capacity - 1;
+            _events = new AtomicReferenceArray<>(capacity);
+            _sequences = new AtomicLongArray(capacity);
+            for (int i = 0; i < capacity; i++) {
+                _sequences.set(i, i);
+            }
+        }
+
+        int capacity() {
+            return _mask + 1;
+        }
+
+        long getEnqueuedCount() {
+            return _enqueuePosition.get();
+        }
+
+        int size() {
+            return (int) Math.max(0, _enqueuePosition.get() - _dequeuePosition);
+        }
+
+        boolean isEmpty() {
+            final long position = _dequeuePosition;
+            return _sequences.get((int) position & _mask) != position + 1;
+        }
+
+        boolean offer(final Event event) {
+            long position = _enqueuePosition.get();
+            while (true) {
+                final int index = (int) position & _mask;
+                final long difference = _sequences.get(index) - position;
+                if (0 == difference) {
+                    if (_enqueuePosition.compareAndSet(position, position + 1)) {
+                        _events.lazySet(index, event);
+                        _sequences.set(index, position + 1);
+                        return true;
+                    } else {
+                        position = _enqueuePosition.get();
+                    }
+                } else if (difference < 0) {
+                    // The slot has not been consumed since the previous lap so the buffer is full
+                    return false;
+                } else {
+                    // Another producer has claimed the position
+                    position = _enqueuePosition.get();
+                }
+            }
+        }
+
+        @Nullable
+        Event poll() {
+            final long position = _dequeuePosition;
+            final int index = (int) position & _mask;
+            if (_sequences.get(index) != position + 1) {
+                return null;
+            }
+            final Event event = _events.get(index);
+            _events.lazySet(index, null);
+            _sequences.set(index, position + _mask + 1);
+            _dequeuePosition = position + 1;
+            return event;
+        }
+    }
+}
@@ -17,9 +17,55 @@ public final class BrainCheckConfig {
     private static boolean c_verboseErrorMessages = PROVIDER.verboseErrorMessages();
     private static boolean c_checkInvariants = PROVIDER.checkInvariants();
     private static boolean c_checkApiInvariants = PROVIDER.checkApiInvariants();
+    private static boolean c_checkCheapInvariants = PROVIDER.checkCheapInvariants();
+    private static boolean c_checkExpensiveInvariants = PROVIDER.checkExpensiveInvariants();
+    private static boolean c_checkParanoidInvariants = PROVIDER.checkParanoidInvariants();
+    private static int c_invariantSampleRate = PROVIDER.invariantSampleRate();
+    private static boolean c_adaptiveInvariants = PROVIDER.adaptiveInvariants();
+    private static boolean c_collectMetrics = PROVIDER.collectMetrics();
+    private static boolean c_stacklessFailures = PROVIDER.stacklessFailures();
+    private static int c_failureThreshold = PROVIDER.failureThreshold();
+    private static int c_failureWindow = PROVIDER.failureWindow();
+    private static FailureMode c_failureMode = PROVIDER.failureMode();
+    private static String c_guardLevels = PROVIDER.guardLevels();
+    private static boolean c_profileInvariants = PROVIDER.profileInvariants();
+    private static int c_invariantBudget = PROVIDER.invariantBudget();
+    private static int c_guardStackFrameCount = PROVIDER.guardStackFrameCount();
+    private static volatile int c_configEpoch;
+    /**
+     * The settings that can be changed at runtime are read via the switches. The GWT and J2CL compilers can
+     * inline the fields above but the JIT is unable to treat a non-final static field as a constant. In the JRE
+     * the switches are backed by call sites so that disabled checks are compiled away while still allowing the
+     * settings to be changed. The setters of the switched settings are synchronized so that the field is written
+     * and the switches are updated as a single step and concurrent setters never publish stale values.
+     * See {@link ConfigSwitches} for further details.
+     */
+    private static final SwitchProvider SWITCHES = new SwitchProvider();
+
+    static {
+        SWITCHES.update();
+    }
 
     private BrainCheckConfig() {}
 
+    /**
+     * The ways in which the failure of an invariant or apiInvariant can be reported.
+     */
+    public enum FailureMode {
+        /**
+         * Throw an {@link IllegalStateException}.
+         */
+        THROW,
+        /**
+         * Record the failure in a bounded in-memory buffer and continue. See {@link FailureRecorder}.
+         */
+        RECORD,
+        /**
+         * Log the failure as a warning via {@link System.Logger} and continue.
+         */
+        LOG
+    }
+
     /**
      * Return true if BrainCheck is running in production mode.
      *
@@ -44,11 +90,15 @@ public final class BrainCheckConfig {
      * @return true if invariant failures will include a detail message.
      */
     public static boolean verboseErrorMessages() {
-        return c_verboseErrorMessages;
+        return SWITCHES.verboseErrorMessages();
     }
 
-    static void setVerboseErrorMessages(final boolean verboseErrorMessages) {
-        c_verboseErrorMessages = verboseErrorMessages;
+    static synchronized void setVerboseErrorMessages(final boolean verboseErrorMessages) {
+        if (c_verboseErrorMessages != verboseErrorMessages) {
+            c_verboseErrorMessages = verboseErrorMessages;
+            incrementConfigEpoch();
+            SWITCHES.update();
+        }
     }
 
     /**
@@ -57,11 +107,15 @@ public final class BrainCheckConfig {
      * @return true if invariants will be checked.
      */
     public static boolean checkInvariants() {
-        return c_checkInvariants;
+        return SWITCHES.checkInvariants();
     }
 
-    static void setCheckInvariants(final boolean checkInvariants) {
-        c_checkInvariants = checkInvariants;
+    static synchronized void setCheckInvariants(final boolean checkInvariants) {
+        if (c_checkInvariants != checkInvariants) {
+            c_checkInvariants = checkInvariants;
+            incrementConfigEpoch();
+            SWITCHES.update();
+        }
     }
 
     /**
@@ -70,11 +124,467 @@ public final class BrainCheckConfig {
      * @return true if apiInvariants will be checked.
      */
     public static boolean checkApiInvariants() {
-        return c_checkApiInvariants;
+        return SWITCHES.checkApiInvariants();
+    }
+
+    static synchronized void setCheckApiInvariants(final boolean checkApiInvariants) {
+        if (c_checkApiInvariants != checkApiInvariants) {
+            c_checkApiInvariants = checkApiInvariants;
+            incrementConfigEpoch();
+            SWITCHES.update();
+        }
+    }
+
+    /**
+     * Return true if cheap invariants will be checked.
+     * Cheap invariants are checked via {@link Guards#cheapInvariant(java.util.function.BooleanSupplier,
+     * java.util.function.Supplier)} and are expected to have a constant cost so that they can remain enabled in
+     * production environments. The value is derived from the <code>braincheck.check_cheap_invariants</code>
+     * setting, defaults to <code>true</code> in every environment and is independent of {@link #checkInvariants()}.
+     *
+     * @return true if cheap invariants will be checked.
+     */
+    public static boolean checkCheapInvariants() {
+        return SWITCHES.checkCheapInvariants();
+    }
+
+    static synchronized void setCheckCheapInvariants(final boolean checkCheapInvariants) {
+        if (c_checkCheapInvariants != checkCheapInvariants) {
+            c_checkCheapInvariants = checkCheapInvariants;
+            incrementConfigEpoch();
+            SWITCHES.update();
+        }
+    }
+
+    /**
+     * Return true if expensive invariants will be checked.
+     * Expensive invariants are checked via {@link Guards#expensiveInvariant(java.util.function.BooleanSupplier,
+     * java.util.function.Supplier)} and may have a cost proportional to the size of the data structure that they
+     * check. The value is derived from the <code>braincheck.check_expensive_invariants</code> setting and is
+     * independent of {@link #checkInvariants()}.
+     *
+     * @return true if expensive invariants will be checked.
+     */
+    public static boolean checkExpensiveInvariants() {
+        return SWITCHES.checkExpensiveInvariants();
+    }
+
+    static synchronized void setCheckExpensiveInvariants(final boolean checkExpensiveInvariants) {
+        if (c_checkExpensiveInvariants != checkExpensiveInvariants) {
+            c_checkExpensiveInvariants = checkExpensiveInvariants;
+            incrementConfigEpoch();
+            SWITCHES.update();
+        }
+    }
+
+    /**
+     * Return true if paranoid invariants will be checked.
+     * Paranoid invariants are checked via {@link Guards#paranoidInvariant(java.util.function.BooleanSupplier,
+     * java.util.function.Supplier)} and are typically too expensive to enable outside of targeted debugging.
+     * The value is derived from the <code>braincheck.check_paranoid_invariants</code> setting which defaults to
+     * <code>false</code> in all environments and is independent of {@link #checkInvariants()}.
+     *
+     * @return true if paranoid invariants will be checked.
+     */
+    public static boolean checkParanoidInvariants() {
+        return SWITCHES.checkParanoidInvariants();
+    }
+
+    static synchronized void setCheckParanoidInvariants(final boolean checkParanoidInvariants) {
+        if (c_checkParanoidInvariants != checkParanoidInvariants) {
+            c_checkParanoidInvariants = checkParanoidInvariants;
+            incrementConfigEpoch();
+            SWITCHES.update();
+        }
+    }
+
+    /**
+     * Return the rate at which deferred invariant conditions are sampled.
+     * A value of <code>N</code> indicates that approximately 1 in <code>N</code> invariant and apiInvariant checks
+     * that supply their condition via a supplier or predicate will evaluate the condition while the remaining
+     * checks are skipped. A value of <code>1</code> indicates that every check is evaluated. The value is derived
+     * from the <code>braincheck.invariant_sample_rate</code> setting which may be of the form <code>1/N</code>
+     * or <code>N</code>. Sampling is only supported in the JRE and the rate is always <code>1</code> when compiled
+     * by GWT or J2CL.
+     *
+     * @return the rate at which deferred invariant conditions are sampled.
+     */
+    public static int invariantSampleRate() {
+        return c_invariantSampleRate;
+    }
+
+    static void setInvariantSampleRate(final int invariantSampleRate) {
+        assert invariantSampleRate >= 1;
+        if (c_invariantSampleRate != invariantSampleRate) {
+            c_invariantSampleRate = invariantSampleRate;
+            incrementConfigEpoch();
+        }
+    }
+
+    /**
+     * Parse the sample rate setting.
+     *
+     * @param value the value of the setting in the form <code>1/N</code> or <code>N</code>.
+     * @return the sample rate.
+     * @throws IllegalStateException if the value is not a valid sample rate.
+     */
+    @GwtIncompatible
+    static int parseSampleRate(final String value) {
+        final String rate = value.startsWith("1/") ? value.substring(2) : value;
+        int result;
+        try {
+            result = Integer.parseInt(rate.trim());
+        } catch (final NumberFormatException e) {
+            result = 0;
+        }
+        if (result < 1) {
+            throw new IllegalStateException("Invalid value '" + value + "' specified for setting "
+                    + "braincheck.invariant_sample_rate. Expected a value of the form '1/N' or 'N' where N >= 1");
+        }
+        return result;
+    }
+
+    /**
+     * Parse an integer setting.
+     *
+     * @param key     the key of the setting.
+     * @param value   the value of the setting.
+     * @param minimum the minimum valid value.
+     * @return the value.
+     * @throws IllegalStateException if the value is not a valid integer or is less than the minimum.
+     */
+    @GwtIncompatible
+    static int parseIntSetting(final String key, final String value, final int minimum) {
+        int result;
+        try {
+            result = Integer.parseInt(value.trim());
+        } catch (final NumberFormatException e) {
+            result = minimum - 1;
+        }
+        if (result < minimum) {
+            throw new IllegalStateException("Invalid value '" + value + "' specified for setting " + key
+                    + ". Expected an integer >= " + minimum);
+        }
+        return result;
+    }
+
+    /**
+     * Return true if invariant checks adapt how often they evaluate their condition.
+     * When enabled, each invariant and apiInvariant call site that supplies a deferred condition tracks
+     * the number of consecutive evaluations that passed and exponentially reduces how often the condition
+     * is evaluated as the streak grows. The frequency is restored when the condition fails or any configuration
+     * setting is changed. The value is derived from the <code>braincheck.adaptive_invariants</code> setting.
+     * Adaptive checking is only supported in the JRE and is always disabled when compiled by GWT or J2CL.
+     *
+     * @return true if invariant checks adapt how often they evaluate their condition.
+     */
+    public static boolean adaptiveInvariants() {
+        return c_adaptiveInvariants;
+    }
+
+    static void setAdaptiveInvariants(final boolean adaptiveInvariants) {
+        if (c_adaptiveInvariants != adaptiveInvariants) {
+            c_adaptiveInvariants = adaptiveInvariants;
+            incrementConfigEpoch();
+        }
+    }
+
+    /**
+     * Return true if metrics are collected for guards.
+     * When enabled, the number of evaluations, failures and exceptions generated while evaluating conditions
+     * are counted per guard type and per call site and can be read via {@link GuardMetrics}. The value is
+     * derived from the <code>braincheck.collect_metrics</code> setting. Metrics are only supported in the JRE
+     * and are never collected when compiled by GWT or J2CL.
+     *
+     * @return true if metrics are collected for guards.
+     */
+    public static boolean collectMetrics() {
+        return c_collectMetrics;
     }
 
-    static void setCheckApiInvariants(final boolean checkApiInvariants) {
-        c_checkApiInvariants = checkApiInvariants;
+    static void setCollectMetrics(final boolean collectMetrics) {
+        if (c_collectMetrics != collectMetrics) {
+            c_collectMetrics = collectMetrics;
+            incrementConfigEpoch();
+        }
+    }
+
+    /**
+     * Return true if failing guards throw an exception without a stack trace when verbose error messages are disabled.
+     * Capturing the stack trace dominates the cost of a failing guard so enabling this setting reduces the cost of
+     * failures in production environments where failures are expected to be handled. The value is derived from the
+     * <code>braincheck.stackless_failures</code> setting. Stackless failures are only supported in the JRE.
+     *
+     * @return true if failing guards throw an exception without a stack trace.
+     */
+    public static boolean stacklessFailures() {
+        return c_stacklessFailures;
+    }
+
+    static void setStacklessFailures(final boolean stacklessFailures) {
+        if (c_stacklessFailures != stacklessFailures) {
+            c_stacklessFailures = stacklessFailures;
+            incrementConfigEpoch();
+        }
+    }
+
+    /**
+     * Return the number of failures of a single call site that are reported in full within a failure window.
+     * Subsequent failures of the call site within the window are suppressed. A suppressed failure still throws
+     * an exception but the message is not rendered and the stack trace is not captured. The window restarts once
+     * {@link #failureWindow()} milliseconds have elapsed. A value of <code>0</code> indicates that failures are
+     * never suppressed. The value is derived from the <code>braincheck.failure_threshold</code> setting. Suppressing
+     * failures is only supported in the JRE and the threshold is always <code>0</code> when compiled by GWT or J2CL.
+     *
+     * @return the number of failures of a single call site that are reported in full within a failure window.
+     */
+    public static int failureThreshold() {
+        return c_failureThreshold;
+    }
+
+    static void setFailureThreshold(final int failureThreshold) {
+        assert failureThreshold >= 0;
+        if (c_failureThreshold != failureThreshold) {
+            c_failureThreshold = failureThreshold;
+            incrementConfigEpoch();
+        }
+    }
+
+    /**
+     * Return the duration of the failure window in milliseconds.
+     * See {@link #failureThreshold()} for details. The value is derived from the
+     * <code>braincheck.failure_window</code> setting and defaults to <code>1000</code>.
+     *
+     * @return the duration of the failure window in milliseconds.
+     */
+    public static int failureWindow() {
+        return c_failureWindow;
+    }
+
+    static void setFailureWindow(final int failureWindow) {
+        assert failureWindow >= 1;
+        if (c_failureWindow != failureWindow) {
+            c_failureWindow = failureWindow;
+            incrementConfigEpoch();
+        }
+    }
+
+    /**
+     * Return the way in which the failure of an invariant or apiInvariant is reported.
+     * Modes other than {@link FailureMode#THROW} allow invariants to be checked in production environments
+     * without the failures being fatal. The failure of {@link Guards#fail(java.util.function.Supplier)} is
+     * always thrown. The value is derived from the <code>braincheck.failure_mode</code> setting which may be
+     * <code>throw</code>, <code>record</code> or <code>log</code> and defaults to <code>throw</code>. Modes
+     * other than {@link FailureMode#THROW} are only supported in the JRE.
+     *
+     * @return the way in which the failure of an invariant or apiInvariant is reported.
+     */
+    public static FailureMode failureMode() {
+        return c_failureMode;
+    }
+
+    static void setFailureMode(final FailureMode failureMode) {
+        if (c_failureMode != failureMode) {
+            c_failureMode = failureMode;
+            incrementConfigEpoch();
+        }
+    }
+
+    /**
+     * Parse the failure mode setting.
+     *
+     * @param value the value of the setting.
+     * @return the failure mode.
+     * @throws IllegalStateException if the value is not a valid failure mode.
+     */
+    @GwtIncompatible
+    static FailureMode parseFailureMode(final String value) {
+        for (final FailureMode mode : FailureMode.values()) {
+            if (mode.name().equalsIgnoreCase(value.trim())) {
+                return mode;
+            }
+        }
+        throw new IllegalStateException("Invalid value '" + value + "' specified for setting "
+                + "braincheck.failure_mode. Expected one of 'throw', 'record' or 'log'");
+    }
+
+    /**
+     * Return the guard levels that override the check settings for specific packages and classes.
+     * The value is a comma separated list of entries of the form <code>name=level</code> where <code>name</code> is a
+     * package or class name and <code>level</code> is one of <code>none</code>, <code>api</code> or <code>all</code>.
+     * The entry with the longest name that matches the class containing a guard determines whether the guard is
+     * checked. The <code>none</code> level disables all invariants, the <code>api</code> level enables api invariants
+     * and disables other invariants and the <code>all</code> level enables both invariants and api invariants. An entry
+     * with an empty name matches every class. Cost classed invariants such as {@link #checkCheapInvariants()} remain
+     * subject to their own settings under the <code>all</code> level. Guards in classes that match no entry use the
+     * global settings. The level is resolved once per call site and cached. The value is derived from the
+     * <code>braincheck.guard_levels</code> setting and defaults to an empty string. Guard levels are only supported in
+     * the JRE.
+     *
+     * @return the guard levels.
+     */
+    public static String guardLevels() {
+        return c_guardLevels;
+    }
+
+    static void setGuardLevels(final String guardLevels) {
+        if (!c_guardLevels.equals(guardLevels)) {
+            c_guardLevels = guardLevels;
+            incrementConfigEpoch();
+        }
+    }
+
+    /**
+     * Return true if the time taken to evaluate invariant conditions is profiled.
+     * When enabled, the time taken to evaluate each deferred invariant and apiInvariant condition is recorded
+     * in a histogram per call site that can be read via {@link GuardProfiler}. The value is derived from the
+     * <code>braincheck.profile_invariants</code> setting. Profiling is only supported in the JRE.
+     *
+     * @return true if the time taken to evaluate invariant conditions is profiled.
+     */
+    public static boolean profileInvariants() {
+        return c_profileInvariants;
+    }
+
+    static void setProfileInvariants(final boolean profileInvariants) {
+        if (c_profileInvariants != profileInvariants) {
+            c_profileInvariants = profileInvariants;
+            incrementConfigEpoch();
+        }
+    }
+
+    /**
+     * Return the time in milliseconds per second that a single call site may spend evaluating its condition.
+     * When {@link #profileInvariants()} is true, a call site that exceeds the budget is demoted so that its
+     * condition is only evaluated for a sample of checks and the demotion is reported. A value of <code>0</code>
+     * indicates that call sites are never demoted. The value is derived from the
+     * <code>braincheck.invariant_budget</code> setting and defaults to <code>0</code>.
+     *
+     * @return the time in milliseconds per second that a single call site may spend evaluating its condition.
+     */
+    public static int invariantBudget() {
+        return c_invariantBudget;
+    }
+
+    static void setInvariantBudget(final int invariantBudget) {
+        assert invariantBudget >= 0;
+        if (c_invariantBudget != invariantBudget) {
+            c_invariantBudget = invariantBudget;
+            incrementConfigEpoch();
+        }
+    }
+
+    /**
+     * Return the maximum number of stack frames captured when reporting a guard to a guard listener.
+     * Listeners are typically only interested in the frames closest to the guard so the stack is bounded to
+     * avoid the cost of materializing the frames of deep stacks. A value of <code>0</code> indicates that the
+     * complete stack is captured. The value is derived from the <code>braincheck.guard_stack_frame_count</code>
+     * setting and defaults to <code>64</code>. Capturing stack frames is only supported in the JRE.
+     *
+     * @return the maximum number of stack frames captured when reporting a guard to a guard listener.
+     */
+    public static int guardStackFrameCount() {
+        return c_guardStackFrameCount;
+    }
+
+    static void setGuardStackFrameCount(final int guardStackFrameCount) {
+        assert guardStackFrameCount >= 0;
+        if (c_guardStackFrameCount != guardStackFrameCount) {
+            c_guardStackFrameCount = guardStackFrameCount;
+            incrementConfigEpoch();
+        }
+    }
+
+    /**
+     * Return a value that changes every time a configuration setting is changed.
+     * This is used to discard state derived from the configuration.
+     *
+     * @return the configuration epoch.
+     */
+    static int configEpoch() {
+        return c_configEpoch;
+    }
+
+    private static synchronized void incrementConfigEpoch() {
+        c_configEpoch++;
+    }
+
+    private static final class SwitchProvider extends AbstractSwitchProvider {
+        @GwtIncompatible
+        @Override
+        boolean verboseErrorMessages() {
+            return ConfigSwitches.verboseErrorMessages();
+        }
+
+        @GwtIncompatible
+        @Override
+        boolean checkInvariants() {
+            return ConfigSwitches.checkInvariants();
+        }
+
+        @GwtIncompatible
+        @Override
+        boolean checkApiInvariants() {
+            return ConfigSwitches.checkApiInvariants();
+        }
+
+        @GwtIncompatible
+        @Override
+        boolean checkCheapInvariants() {
+            return ConfigSwitches.checkCheapInvariants();
+        }
+
+        @GwtIncompatible
+        @Override
+        boolean checkExpensiveInvariants() {
+            return ConfigSwitches.checkExpensiveInvariants();
+        }
+
+        @GwtIncompatible
+        @Override
+        boolean checkParanoidInvariants() {
+            return ConfigSwitches.checkParanoidInvariants();
+        }
+
+        @GwtIncompatible
+        @Override
+        void update() {
+            ConfigSwitches.update(
+                    c_verboseErrorMessages,
+                    c_checkInvariants,
+                    c_checkApiInvariants,
+                    c_checkCheapInvariants,
+                    c_checkExpensiveInvariants,
+                    c_checkParanoidInvariants);
+        }
+    }
+
+    private abstract static class AbstractSwitchProvider {
+        boolean verboseErrorMessages() {
+            return c_verboseErrorMessages;
+        }
+
+        boolean checkInvariants() {
+            return c_checkInvariants;
+        }
+
+        boolean checkApiInvariants() {
+            return c_checkApiInvariants;
+        }
+
+        boolean checkCheapInvariants() {
+            return c_checkCheapInvariants;
+        }
+
+        boolean checkExpensiveInvariants() {
+            return c_checkExpensiveInvariants;
+        }
+
+        boolean checkParanoidInvariants() {
+            return c_checkParanoidInvariants;
+        }
+
+        void update() {}
     }
 
     @SuppressWarnings("SimplifiableConditionalExpression")
@@ -108,6 +618,103 @@ public final class BrainCheckConfig {
                     .equals(System.getProperty(
                             "braincheck.check_api_invariants", PRODUCTION_ENVIRONMENT ? "false" : "true"));
         }
+
+        @GwtIncompatible
+        @Override
+        boolean checkCheapInvariants() {
+            return "true"
+                    .equals(System.getProperty(
+                            "braincheck.check_cheap_invariants", "true"));
+        }
+
+        @GwtIncompatible
+        @Override
+        boolean checkExpensiveInvariants() {
+            return "true"
+                    .equals(System.getProperty(
+                            "braincheck.check_expensive_invariants", PRODUCTION_ENVIRONMENT ? "false" : "true"));
+        }
+
+        @GwtIncompatible
+        @Override
+        boolean checkParanoidInvariants() {
+            return "true".equals(System.getProperty("braincheck.check_paranoid_invariants", "false"));
+        }
+
+        @GwtIncompatible
+        @Override
+        int invariantSampleRate() {
+            return parseSampleRate(System.getProperty("braincheck.invariant_sample_rate", "1"));
+        }
+
+        @GwtIncompatible
+        @Override
+        boolean adaptiveInvariants() {
+            return "true".equals(System.getProperty("braincheck.adaptive_invariants", "false"));
+        }
+
+        @GwtIncompatible
+        @Override
+        boolean collectMetrics() {
+            return "true".equals(System.getProperty("braincheck.collect_metrics", "false"));
+        }
+
+        @GwtIncompatible
+        @Override
+        boolean stacklessFailures() {
+            return "true".equals(System.getProperty("braincheck.stackless_failures", "false"));
+        }
+
+        @GwtIncompatible
+        @Override
+        int failureThreshold() {
+            return parseIntSetting(
+                    "braincheck.failure_threshold", System.getProperty("braincheck.failure_threshold", "0"), 0);
+        }
+
+        @GwtIncompatible
+        @Override
+        int failureWindow() {
+            return parseIntSetting(
+                    "braincheck.failure_window", System.getProperty("braincheck.failure_window", "1000"), 1);
+        }
+
+        @GwtIncompatible
+        @Override
+        FailureMode failureMode() {
+            return parseFailureMode(System.getProperty("braincheck.failure_mode", "throw"));
+        }
+
+        @GwtIncompatible
+        @Override
+        String guardLevels() {
+            final String guardLevels = System.getProperty("braincheck.guard_levels", "");
+            // Parse the setting so that an invalid value is reported when the configuration is loaded
+            GuardLevels.parse(guardLevels);
+            return guardLevels;
+        }
+
+        @GwtIncompatible
+        @Override
+        boolean profileInvariants() {
+            return "true".equals(System.getProperty("braincheck.profile_invariants", "false"));
+        }
+
+        @GwtIncompatible
+        @Override
+        int invariantBudget() {
+            return parseIntSetting(
+                    "braincheck.invariant_budget", System.getProperty("braincheck.invariant_budget", "0"), 0);
+        }
+
+        @GwtIncompatible
+        @Override
+        int guardStackFrameCount() {
+            return parseIntSetting(
+                    "braincheck.guard_stack_frame_count",
+                    System.getProperty("braincheck.guard_stack_frame_count", "64"),
+                    0);
+        }
     }
 
     @SuppressWarnings("unused")
@@ -127,5 +734,61 @@ public final class BrainCheckConfig {
         boolean checkApiInvariants() {
             return "true" == System.getProperty("braincheck.check_api_invariants");
         }
+
+        boolean checkCheapInvariants() {
+            return "true" == System.getProperty("braincheck.check_cheap_invariants");
+        }
+
+        boolean checkExpensiveInvariants() {
+            return "true" == System.getProperty("braincheck.check_expensive_invariants");
+        }
+
+        boolean checkParanoidInvariants() {
+            return "true" == System.getProperty("braincheck.check_paranoid_invariants");
+        }
+
+        int invariantSampleRate() {
+            return 1;
+        }
+
+        boolean adaptiveInvariants() {
+            return false;
+        }
+
+        boolean collectMetrics() {
+            return false;
+        }
+
+        boolean stacklessFailures() {
+            return false;
+        }
+
+        int failureThreshold() {
+            return 0;
+        }
+
+        int failureWindow() {
+            return 1000;
+        }
+
+        FailureMode failureMode() {
+            return FailureMode.THROW;
+        }
+
+        String guardLevels() {
+            return "";
+        }
+
+        boolean profileInvariants() {
+            return false;
+        }
+
+        int invariantBudget() {
+            return 0;
+        }
+
+        int guardStackFrameCount() {
+            return 64;
+        }
     }
 }
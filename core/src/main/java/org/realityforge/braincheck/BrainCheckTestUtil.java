@@ -1,5 +1,6 @@
 package org.realityforge.braincheck;
 
+import java.util.function.BooleanSupplier;
 import java.util.function.Supplier;
 import org.jspecify.annotations.Nullable;
 
@@ -34,37 +35,152 @@ public final class BrainCheckTestUtil {
      * that they comply with patterns and to ensure they are documented appropriately.
      */
     public interface OnGuardListener {
+        /**
+         * Return true if the listener is interested in guards of the specified type.
+         * This method is invoked before the message is rendered or the stack trace is captured. Returning
+         * false skips both steps and the listener will not be notified of the guard.
+         *
+         * @param type The type of the guard. Must not be null.
+         * @return true if the listener is interested in guards of the specified type.
+         */
+        default boolean isInterestedIn(final GuardType type) {
+            return true;
+        }
+
+        /**
+         * Return true if the listener is interested in the guard with the specified type and message.
+         * This method is invoked after the message is rendered but before the stack trace is captured.
+         * Returning false skips capturing the stack trace and the listener will not be notified of the guard.
+         *
+         * @param type    The type of the guard. Must not be null.
+         * @param message The message describing the reason for the guard invocation. Must not be null.
+         * @return true if the listener is interested in the guard.
+         */
+        default boolean isInterestedIn(final GuardType type, final String message) {
+            return true;
+        }
+
+        /**
+         * Return true if the listener is interested in the coded guard with the specified type, key and code.
+         * This method is invoked for guards that were passed a structured code before the message is rendered or
+         * the stack trace is captured. Returning false skips both steps and the listener will not be notified of
+         * the guard.
+         *
+         * @param type The type of the guard. Must not be null.
+         * @param key  The key that identifies the library or subsystem that owns the code. Must not be null.
+         * @param code The code of the guard.
+         * @return true if the listener is interested in the guard.
+         */
+        default boolean isInterestedIn(final GuardType type, final String key, final int code) {
+            return true;
+        }
+
         /**
          * Invoked when a guard is triggered. This method provides details about the guard type,
          * the associated message, and the stack trace at the point of invocation.
          *
          * @param type       The type of the guard (e.g., FAIL, INVARIANT, API_INVARIANT). Must not be null.
          * @param message    A detailed message describing the reason for the guard invocation. Must not be null.
-         * @param stackTrace The stack trace captured at the time of the guard invocation. Must not be null.
+         * @param stackTrace The stack trace captured at the time of the guard invocation, limited to the innermost
+         *                   {@link BrainCheckConfig#guardStackFrameCount()} frames. Must not be null.
          */
         void onGuard(GuardType type, String message, StackTraceElement[] stackTrace);
+
+        /**
+         * Invoked when a guard that was passed a structured code is triggered.
+         * The default implementation prefixes the message with the code in the form
+         * <code>"[Key]-####: [Message]"</code> and, if {@link #isInterestedIn(GuardType, String)} returns true,
+         * delegates to {@link #onGuard(GuardType, String, StackTraceElement[])}. Listeners that override this
+         * method receive the key and code without any string building or parsing.
+         *
+         * @param type       The type of the guard. Must not be null.
+         * @param key        The key that identifies the library or subsystem that owns the code. Must not be null.
+         * @param code       The code of the guard.
+         * @param message    The message without the code prefix. Must not be null.
+         * @param stackTrace The stack trace captured at the time of the guard invocation, limited to the innermost
+         *                   {@link BrainCheckConfig#guardStackFrameCount()} frames. Must not be null.
+         */
+        default void onGuard(
+                final GuardType type,
+                final String key,
+                final int code,
+                final String message,
+                final StackTraceElement[] stackTrace) {
+            final String codedMessage = BrainCheckUtil.toCodedMessage(key, code, message);
+            if (isInterestedIn(type, codedMessage)) {
+                onGuard(type, codedMessage, stackTrace);
+            }
+        }
+    }
+
+    /**
+     * A handle returned when a listener is added that can be used to remove the listener.
+     */
+    public static final class ListenerRegistration implements AutoCloseable {
+        private final Runnable _removeAction;
+
+        ListenerRegistration(final Runnable removeAction) {
+            _removeAction = removeAction;
+        }
+
+        /**
+         * Remove the listener. Removing a listener that has already been removed has no effect.
+         */
+        public void remove() {
+            _removeAction.run();
+        }
+
+        @Override
+        public void close() {
+            remove();
+        }
     }
 
     /**
-     * Specify a callback that is invoked anytime the {@link Guards#invariant(Supplier, Supplier)} method or
-     * the {@link Guards#apiInvariant(Supplier, Supplier)} method is invoked while in development mode.
+     * Specify a callback that is invoked anytime the {@link Guards#invariant(BooleanSupplier, Supplier)} method or
+     * the {@link Guards#apiInvariant(BooleanSupplier, Supplier)} method is invoked while in development mode.
+     * This replaces any listeners previously specified or added. Specifying null removes all listeners.
+     * Listeners added via {@link #addThreadOnGuardListener(OnGuardListener)} are not affected.
      *
      * @param onGuardListener the listener.
      */
     public static void setOnGuardListener(@Nullable final OnGuardListener onGuardListener) {
-        if (null == onGuardListener) {
-            Guards.setOnGuardListener(null);
-        } else {
-            final Guards.OnGuardListener listener = (type, message, stackTrace) ->
-                    onGuardListener.onGuard(GuardType.valueOf(type.name()), message, stackTrace);
-            Guards.setOnGuardListener(listener);
-        }
+        Guards.setOnGuardListener(null == onGuardListener ? null : new ListenerAdapter(onGuardListener));
+    }
+
+    /**
+     * Add a callback that is invoked anytime a guard is invoked while in development mode.
+     * Multiple listeners may be added and each listener is notified of the guards it is interested in.
+     * Listeners may be added and removed from any thread.
+     *
+     * @param onGuardListener the listener.
+     * @return the registration used to remove the listener.
+     */
+    public static ListenerRegistration addOnGuardListener(final OnGuardListener onGuardListener) {
+        final ListenerAdapter adapter = new ListenerAdapter(onGuardListener);
+        Guards.addOnGuardListener(adapter);
+        return new ListenerRegistration(() -> Guards.removeOnGuardListener(adapter));
+    }
+
+    /**
+     * Add a callback that is invoked anytime a guard is invoked on the current thread while in development mode.
+     * This makes it possible for tests that run in parallel to each collect the guards that they trigger.
+     * The listener is not notified of guards invoked on other threads and is not removed when the
+     * configuration is reset. The listener may be removed from any thread.
+     *
+     * @param onGuardListener the listener.
+     * @return the registration used to remove the listener.
+     */
+    @GwtIncompatible
+    public static ListenerRegistration addThreadOnGuardListener(final OnGuardListener onGuardListener) {
+        return new ListenerRegistration(ThreadGuardListeners.add(new ListenerAdapter(onGuardListener)));
     }
 
     /**
      * Reset the state of BrainCheck config to either production or development state.
      *
-     * @param productionMode true to set it to production mode configuration, false to set it to development mode config.
+     * @param productionMode true to set it to production mode configuration, false to set it to development mode
+     *                       config.
      */
     public static void resetConfig(final boolean productionMode) {
         if (BrainCheckConfig.isProductionEnvironment()) {
@@ -75,11 +191,74 @@ public final class BrainCheckTestUtil {
             BrainCheckConfig.setVerboseErrorMessages(false);
             BrainCheckConfig.setCheckInvariants(false);
             BrainCheckConfig.setCheckApiInvariants(false);
+            BrainCheckConfig.setCheckCheapInvariants(true);
+            BrainCheckConfig.setCheckExpensiveInvariants(false);
         } else {
             BrainCheckConfig.setVerboseErrorMessages(true);
             BrainCheckConfig.setCheckInvariants(true);
             BrainCheckConfig.setCheckApiInvariants(true);
+            BrainCheckConfig.setCheckCheapInvariants(true);
+            BrainCheckConfig.setCheckExpensiveInvariants(true);
         }
+        BrainCheckConfig.setCheckParanoidInvariants(false);
+        BrainCheckConfig.setInvariantSampleRate(1);
+        BrainCheckConfig.setAdaptiveInvariants(false);
+        BrainCheckConfig.setCollectMetrics(false);
+        BrainCheckConfig.setStacklessFailures(false);
+        BrainCheckConfig.setFailureThreshold(0);
+        BrainCheckConfig.setFailureWindow(1000);
+        BrainCheckConfig.setFailureMode(BrainCheckConfig.FailureMode.THROW);
+        BrainCheckConfig.setGuardLevels("");
+        BrainCheckConfig.setProfileInvariants(false);
+        BrainCheckConfig.setInvariantBudget(0);
+        BrainCheckConfig.setGuardStackFrameCount(64);
         setOnGuardListener(null);
     }
+
+    /**
+     * Adapts the public listener interface to the internal listener interface.
+     * The {@link GuardType} enum declares its values in the same order as {@link Guards.Type}.
+     */
+    private static final class ListenerAdapter implements Guards.OnGuardListener {
+        private static final GuardType[] GUARD_TYPES = GuardType.values();
+        private final OnGuardListener _listener;
+
+        ListenerAdapter(final OnGuardListener listener) {
+            _listener = listener;
+        }
+
+        @Override
+        public boolean isInterestedIn(final Guards.Type type) {
+            return _listener.isInterestedIn(toGuardType(type));
+        }
+
+        @Override
+        public boolean isInterestedIn(final Guards.Type type, final String message) {
+            return _listener.isInterestedIn(toGuardType(type), message);
+        }
+
+        @Override
+        public boolean isInterestedIn(final Guards.Type type, final String key, final int code) {
+            return _listener.isInterestedIn(toGuardType(type), key, code);
+        }
+
+        @Override
+        public void onGuard(final Guards.Type type, final String message, final StackTraceElement[] stackTrace) {
+            _listener.onGuard(toGuardType(type), message, stackTrace);
+        }
+
+        @Override
+        public void onGuard(
+                final Guards.Type type,
+                final String key,
+                final int code,
+                final String message,
+                final StackTraceElement[] stackTrace) {
+            _listener.onGuard(toGuardType(type), key, code, message, stackTrace);
+        }
+
+        private static GuardType toGuardType(final Guards.Type type) {
+            return GUARD_TYPES[type.ordinal()];
+        }
+    }
 }
@@ -1,12 +1,29 @@
 package org.realityforge.braincheck;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.function.Supplier;
+import org.jspecify.annotations.Nullable;
 
 /**
  * A place to store utility methods that should not be used outside this package.
  */
 @SuppressWarnings("ConstantConditions")
 final class BrainCheckUtil {
+    /**
+     * The maximum number of stack frames of each throwable included by {@link #throwableToString(Throwable)}.
+     */
+    static final int MAX_STACK_FRAMES = 64;
+    /**
+     * The maximum number of characters produced by {@link #throwableToString(Throwable)} before the output is
+     * truncated.
+     */
+    static final int MAX_LENGTH = 16 * 1024;
+    /**
+     * The suffix appended to the output of {@link #throwableToString(Throwable)} when it is truncated.
+     */
+    static final String TRUNCATED_SUFFIX = "\n... output truncated";
+
     private BrainCheckUtil() {}
 
     /**
@@ -26,6 +43,79 @@ final class BrainCheckUtil {
         }
     }
 
+    /**
+     * Return the message generated by substituting the arguments into the message template.
+     * Each occurrence of <code>%s</code> in the template is replaced by the string value of the next argument.
+     * {@link String#format(String, Object...)} is not used as it is not available in GWT. Placeholders without a
+     * matching argument are left in place and surplus arguments are ignored. If converting an argument to a string
+     * generates an exception then catch it and generate an explanatory message.
+     *
+     * @param messageTemplate the message template.
+     * @param arguments       the arguments to substitute into the template.
+     * @return the formatted message.
+     */
+    static String safeFormat(final String messageTemplate, @Nullable final Object... arguments) {
+        assert null != messageTemplate;
+        try {
+            final StringBuilder sb = new StringBuilder(messageTemplate.length() + 16 * arguments.length);
+            int start = 0;
+            for (final Object argument : arguments) {
+                final int index = messageTemplate.indexOf("%s", start);
+                if (-1 == index) {
+                    break;
+                }
+                sb.append(messageTemplate, start, index).append(argument);
+                start = index + 2;
+            }
+            return sb.append(messageTemplate, start, messageTemplate.length()).toString();
+        } catch (final Throwable t) {
+            return "Exception generated whilst attempting to format message.\n"
+                    + "Template: " + messageTemplate + "\n" + throwableToString(t);
+        }
+    }
+
+    /**
+     * Return the message prefixed by the code in the form <code>"[Key]-####: [Message]"</code>.
+     * {@link String#format(String, Object...)} is not used as it is not available in GWT.
+     *
+     * @param key     the key that identifies the library or subsystem that owns the code.
+     * @param code    the code of the message.
+     * @param message the message.
+     * @return the coded message.
+     */
+    static String toCodedMessage(final String key, final int code, final String message) {
+        return toCode(key, code) + ": " + message;
+    }
+
+    /**
+     * Return the code in the form <code>"[Key]-####"</code>.
+     * The code is padded with leading zeros to at least 4 digits.
+     *
+     * @param key  the key that identifies the library or subsystem that owns the code.
+     * @param code the code.
+     * @return the formatted code.
+     */
+    static String toCode(final String key, final int code) {
+        final String digits = String.valueOf(code);
+        final StringBuilder sb = new StringBuilder(key.length() + 6).append(key).append('-');
+        for (int i = digits.length(); i < 4; i++) {
+            sb.append('0');
+        }
+        return sb.append(digits).toString();
+    }
+
+    /**
+     * Return string converted to stack trace.
+     * The output is bounded by {@link #MAX_STACK_FRAMES} and {@link #MAX_LENGTH}.
+     *
+     * @param throwable the throwable to convert
+     * @return the stack trace.
+     * @see #throwableToString(Throwable, int, int)
+     */
+    static String throwableToString(final Throwable throwable) {
+        return throwableToString(throwable, MAX_STACK_FRAMES, MAX_LENGTH);
+    }
+
     /**
      * Return string converted to stack trace.
      * This method uses explicit traversal of the throwable to be compatible with GWT.
@@ -36,28 +126,136 @@ final class BrainCheckUtil {
      * t.printStackTrace( new PrintWriter( out ) );
      * </pre>
      *
+     * <p>The output follows the format of {@link Throwable#printStackTrace()} and includes suppressed exceptions
+     * and causes. Frames that a cause or suppressed exception has in common with the enclosing trace are folded
+     * into a <code>... n more</code> line. At most <code>maxFrames</code> frames of each throwable are included,
+     * a throwable that has already been included is replaced by a circular reference marker, and the output is
+     * truncated once it exceeds <code>maxLength</code> characters so that a deep or cyclic throwable can not
+     * produce an unbounded message.</p>
+     *
      * @param throwable the throwable to convert
+     * @param maxFrames the maximum number of frames included for each throwable.
+     * @param maxLength the maximum number of characters before the output is truncated.
      * @return the stack trace.
      */
-    static String throwableToString(final Throwable throwable) {
+    static String throwableToString(final Throwable throwable, final int maxFrames, final int maxLength) {
         assert null != throwable;
-        final StringBuilder sb = new StringBuilder();
+        final BoundedBuilder sb = new BoundedBuilder(maxLength);
+        appendThrowable(sb, throwable, null, "", "", new ArrayList<>(), maxFrames);
+        return sb.toString();
+    }
+
+    /**
+     * Append the throwable and its chain of causes to the builder.
+     * Causes are traversed iteratively so a long chain of causes does not consume the stack.
+     */
+    private static void appendThrowable(
+            final BoundedBuilder sb,
+            final Throwable throwable,
+            final StackTraceElement @Nullable [] enclosingTrace,
+            final String caption,
+            final String indent,
+            final List<Throwable> visited,
+            final int maxFrames) {
         Throwable t = throwable;
-        while (null != t) {
-            addCausedByPrefix(sb);
+        StackTraceElement @Nullable [] enclosing = enclosingTrace;
+        String prefix = caption;
+        while (null != t && !sb.isTruncated()) {
+            if (!sb.isEmpty()) {
+                sb.append("\n");
+            }
+            sb.append(indent).append(prefix);
+            if (isVisited(visited, t)) {
+                sb.append("[CIRCULAR REFERENCE: ").append(t.toString()).append("]");
+                return;
+            }
+            visited.add(t);
             sb.append(t.toString());
-            for (final StackTraceElement element : t.getStackTrace()) {
-                sb.append("\n  at ").append(element);
+            final StackTraceElement[] trace = t.getStackTrace();
+            int last = trace.length - 1;
+            if (null != enclosing) {
+                int enclosingIndex = enclosing.length - 1;
+                while (last >= 0 && enclosingIndex >= 0 && trace[last].equals(enclosing[enclosingIndex])) {
+                    last--;
+                    enclosingIndex--;
+                }
+            }
+            final int uniqueFrames = last + 1;
+            final int frames = Math.min(uniqueFrames, maxFrames);
+            for (int i = 0; i < frames && !sb.isTruncated(); i++) {
+                sb.append("\n").append(indent).append("  at ").append(trace[i].toString());
+            }
+            if (frames < uniqueFrames) {
+                sb.append("\n")
+                        .append(indent)
+                        .append("  ... ")
+                        .append(String.valueOf(uniqueFrames - frames))
+                        .append(" frames omitted");
             }
+            if (uniqueFrames < trace.length) {
+                sb.append("\n")
+                        .append(indent)
+                        .append("  ... ")
+                        .append(String.valueOf(trace.length - uniqueFrames))
+                        .append(" more");
+            }
+            for (final Throwable suppressed : t.getSuppressed()) {
+                appendThrowable(sb, suppressed, trace, "Suppressed: ", indent + "  ", visited, maxFrames);
+            }
+            enclosing = trace;
+            prefix = "Caused by: ";
             t = t.getCause();
         }
+    }
 
-        return sb.toString();
+    /**
+     * Return true if the throwable has already been visited.
+     * Identity is used rather than {@link Object#equals(Object)} as a throwable may override equals.
+     */
+    private static boolean isVisited(final List<Throwable> visited, final Throwable throwable) {
+        for (final Throwable t : visited) {
+            if (t == throwable) {
+                return true;
+            }
+        }
+        return false;
     }
 
-    private static void addCausedByPrefix(final StringBuilder sb) {
-        if (0 != sb.length()) {
-            sb.append("\nCaused by: ");
+    /**
+     * A builder that never holds more than the maximum number of characters.
+     * Each append is capped at the remaining capacity so a large message or trace is never copied in full.
+     */
+    private static final class BoundedBuilder {
+        private final StringBuilder _sb = new StringBuilder();
+        private final int _maxLength;
+        private boolean _truncated;
+
+        BoundedBuilder(final int maxLength) {
+            _maxLength = maxLength;
+        }
+
+        BoundedBuilder append(final String text) {
+            final int remaining = _maxLength - _sb.length();
+            if (text.length() <= remaining) {
+                _sb.append(text);
+            } else {
+                _sb.append(text, 0, Math.max(0, remaining));
+                _truncated = true;
+            }
+            return this;
+        }
+
+        boolean isEmpty() {
+            return 0 == _sb.length();
+        }
+
+        boolean isTruncated() {
+            return _truncated;
+        }
+
+        @Override
+        public String toString() {
+            return _truncated ? _sb + TRUNCATED_SUFFIX : _sb.toString();
         }
     }
 }
@@ -0,0 +1,117 @@
+package org.realityforge.braincheck;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.MutableCallSite;
+
+/**
+ * JRE backing store for the configuration settings that can be changed at runtime.
+ * Each setting is held by a {@link MutableCallSite} whose target is a constant method handle. The dynamic
+ * invoker for the call site is stored in a static final field so the JIT treats the current value as a
+ * constant and eliminates any code guarded by a disabled setting. Changing a setting replaces the target
+ * of the call site which causes the JIT to deoptimize any compiled code that depends upon the old value.
+ */
+@GwtIncompatible
+final class ConfigSwitches {
+    private static final MutableCallSite VERBOSE_ERROR_MESSAGES_SITE = newCallSite();
+    private static final MutableCallSite CHECK_INVARIANTS_SITE = newCallSite();
+    private static final MutableCallSite CHECK_API_INVARIANTS_SITE = newCallSite();
+    private static final MutableCallSite CHECK_CHEAP_INVARIANTS_SITE = newCallSite();
+    private static final MutableCallSite CHECK_EXPENSIVE_INVARIANTS_SITE = newCallSite();
+    private static final MutableCallSite CHECK_PARANOID_INVARIANTS_SITE = newCallSite();
+    private static final MethodHandle VERBOSE_ERROR_MESSAGES = VERBOSE_ERROR_MESSAGES_SITE.dynamicInvoker();
+    private static final MethodHandle CHECK_INVARIANTS = CHECK_INVARIANTS_SITE.dynamicInvoker();
+    private static final MethodHandle CHECK_API_INVARIANTS = CHECK_API_INVARIANTS_SITE.dynamicInvoker();
+    private static final MethodHandle CHECK_CHEAP_INVARIANTS = CHECK_CHEAP_INVARIANTS_SITE.dynamicInvoker();
+    private static final MethodHandle CHECK_EXPENSIVE_INVARIANTS = CHECK_EXPENSIVE_INVARIANTS_SITE.dynamicInvoker();
+    private static final MethodHandle CHECK_PARANOID_INVARIANTS = CHECK_PARANOID_INVARIANTS_SITE.dynamicInvoker();
+
+    private ConfigSwitches() {}
+
+    static boolean verboseErrorMessages() {
+        try {
+            return (boolean) VERBOSE_ERROR_MESSAGES.invokeExact();
+        } catch (final Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    static boolean checkInvariants() {
+        try {
+            return (boolean) CHECK_INVARIANTS.invokeExact();
+        } catch (final Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    static boolean checkApiInvariants() {
+        try {
+            return (boolean) CHECK_API_INVARIANTS.invokeExact();
+        } catch (final Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    static boolean checkCheapInvariants() {
+        try {
+            return (boolean) CHECK_CHEAP_INVARIANTS.invokeExact();
+        } catch (final Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    static boolean checkExpensiveInvariants() {
+        try {
+            return (boolean) CHECK_EXPENSIVE_INVARIANTS.invokeExact();
+        } catch (final Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    static boolean checkParanoidInvariants() {
+        try {
+            return (boolean) CHECK_PARANOID_INVARIANTS.invokeExact();
+        } catch (final Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    /**
+     * Update the switches to reflect the supplied values and publish the changes to all threads.
+     * This is relatively expensive as any compiled code that depends on a changed switch is deoptimized.
+     *
+     * @param verboseErrorMessages     the value for the verbose error messages setting.
+     * @param checkInvariants          the value for the check invariants setting.
+     * @param checkApiInvariants       the value for the check api invariants setting.
+     * @param checkCheapInvariants     the value for the check cheap invariants setting.
+     * @param checkExpensiveInvariants the value for the check expensive invariants setting.
+     * @param checkParanoidInvariants  the value for the check paranoid invariants setting.
+     */
+    static synchronized void update(
+            final boolean verboseErrorMessages,
+            final boolean checkInvariants,
+            final boolean checkApiInvariants,
+            final boolean checkCheapInvariants,
+            final boolean checkExpensiveInvariants,
+            final boolean checkParanoidInvariants) {
+        VERBOSE_ERROR_MESSAGES_SITE.setTarget(MethodHandles.constant(boolean.class, verboseErrorMessages));
+        CHECK_INVARIANTS_SITE.setTarget(MethodHandles.constant(boolean.class, checkInvariants));
+        CHECK_API_INVARIANTS_SITE.setTarget(MethodHandles.constant(boolean.class, checkApiInvariants));
+        CHECK_CHEAP_INVARIANTS_SITE.setTarget(MethodHandles.constant(boolean.class, checkCheapInvariants));
+        CHECK_EXPENSIVE_INVARIANTS_SITE.setTarget(MethodHandles.constant(boolean.class, checkExpensiveInvariants));
+        CHECK_PARANOID_INVARIANTS_SITE.setTarget(MethodHandles.constant(boolean.class, checkParanoidInvariants));
+        MutableCallSite.syncAll(new MutableCallSite[] {
+            VERBOSE_ERROR_MESSAGES_SITE,
+            CHECK_INVARIANTS_SITE,
+            CHECK_API_INVARIANTS_SITE,
+            CHECK_CHEAP_INVARIANTS_SITE,
+            CHECK_EXPENSIVE_INVARIANTS_SITE,
+            CHECK_PARANOID_INVARIANTS_SITE
+        });
+    }
+
+    private static MutableCallSite newCallSite() {
+        return new MutableCallSite(MethodType.methodType(boolean.class));
+    }
+}
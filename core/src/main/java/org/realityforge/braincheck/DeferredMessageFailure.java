@@ -0,0 +1,36 @@
+package org.realityforge.braincheck;
+
+import org.jspecify.annotations.Nullable;
+
+/**
+ * The exception thrown by failing guards when verbose error messages are enabled.
+ * The message is only rendered when {@link #getMessage()} is invoked so that failures that are caught and handled
+ * without inspecting the message do not pay the cost of rendering it. The exception is replaced by an
+ * {@link IllegalStateException} containing the rendered message when serialized.
+ */
+@GwtIncompatible
+final class DeferredMessageFailure extends IllegalStateException {
+    private static final long serialVersionUID = 1L;
+    @Nullable
+    private final transient GuardMessage _message;
+
+    DeferredMessageFailure(final GuardMessage message) {
+        _message = message;
+    }
+
+    @Nullable
+    @Override
+    public String getMessage() {
+        final GuardMessage message = _message;
+        return null != message ? message.get() : super.getMessage();
+    }
+
+    private Object writeReplace() {
+        final IllegalStateException replacement = new IllegalStateException(getMessage(), getCause());
+        replacement.setStackTrace(getStackTrace());
+        for (final Throwable suppressed : getSuppressed()) {
+            replacement.addSuppressed(suppressed);
+        }
+        return replacement;
+    }
+}
@@ -0,0 +1,51 @@
+package org.realityforge.braincheck;
+
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Limits the rate at which a single call site reports failures.
+ * Once a call site has failed more than {@link BrainCheckConfig#failureThreshold()} times within a window of
+ * {@link BrainCheckConfig#failureWindow()} milliseconds, subsequent failures within the window are suppressed.
+ * A suppressed failure still throws but the message is not rendered and the stack trace is not captured.
+ * The window restarts once it has elapsed, after which failures are reported in full.
+ */
+final class FailureGovernor {
+    private static final GovernorProvider PROVIDER = new GovernorProvider();
+
+    private FailureGovernor() {}
+
+    /**
+     * Return true if the failure should be suppressed.
+     *
+     * @param type     the type of the guard.
+     * @param callSite the message supplier or message template that identifies the call site.
+     * @param key      the key that identifies the library or subsystem that owns the code or null if the guard
+     *                 is not coded.
+     * @param code     the code of the guard. Ignored if the key is null.
+     * @return true if the failure should be suppressed.
+     */
+    static boolean shouldSuppressFailure(
+            final Guards.Type type, final Object callSite, @Nullable final String key, final int code) {
+        if (0 != BrainCheckConfig.failureThreshold() && PROVIDER.shouldSuppressFailure(callSite)) {
+            MetricsUtil.onSuppressedFailure(type, callSite, key, code);
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    private static final class GovernorProvider extends AbstractGovernorProvider {
+        @GwtIncompatible
+        @Override
+        boolean shouldSuppressFailure(final Object callSite) {
+            return GuardSites.get(callSite)
+                    .shouldSuppressFailure(BrainCheckConfig.failureThreshold(), BrainCheckConfig.failureWindow());
+        }
+    }
+
+    private abstract static class AbstractGovernorProvider {
+        boolean shouldSuppressFailure(final Object callSite) {
+            return false;
+        }
+    }
+}
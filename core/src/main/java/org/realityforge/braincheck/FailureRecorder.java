@@ -0,0 +1,68 @@
+package org.realityforge.braincheck;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * The destination of guard failures that are not thrown.
+ * When {@link BrainCheckConfig#failureMode()} is {@link BrainCheckConfig.FailureMode#RECORD}, failures are
+ * added to a bounded in-memory buffer that should be drained periodically, typically from a background thread.
+ * Failures that occur when the buffer is full are dropped and counted. When the failure mode is
+ * {@link BrainCheckConfig.FailureMode#LOG}, failures are logged as warnings via {@link System.Logger}.
+ */
+@GwtIncompatible
+public final class FailureRecorder {
+    /**
+     * The maximum number of failures retained by the buffer.
+     */
+    public static final int CAPACITY = 1024;
+
+    private static final ArrayBlockingQueue<RecordedFailure> FAILURES = new ArrayBlockingQueue<>(CAPACITY);
+    private static final LongAdder DROPPED_COUNT = new LongAdder();
+    private static final System.Logger LOGGER = System.getLogger(FailureRecorder.class.getName());
+
+    private FailureRecorder() {}
+
+    /**
+     * Remove and return all the failures in the buffer, oldest first.
+     *
+     * @return the failures that were in the buffer.
+     */
+    public static List<RecordedFailure> drain() {
+        final List<RecordedFailure> failures = new ArrayList<>();
+        FAILURES.drainTo(failures);
+        return failures;
+    }
+
+    /**
+     * Return the number of failures dropped as the buffer was full and reset the count to zero.
+     *
+     * @return the number of failures dropped since the count was last reset.
+     */
+    public static long resetDroppedCount() {
+        return DROPPED_COUNT.sumThenReset();
+    }
+
+    static void record(final Guards.Type type, final String callSite, @Nullable final String message) {
+        final RecordedFailure failure = new RecordedFailure(
+                GuardMetrics.toType(type),
+                callSite,
+                message,
+                System.currentTimeMillis(),
+                Thread.currentThread().getName());
+        if (!FAILURES.offer(failure)) {
+            DROPPED_COUNT.increment();
+        }
+    }
+
+    static void log(final Guards.Type type, final String callSite, @Nullable final String message) {
+        if (LOGGER.isLoggable(System.Logger.Level.WARNING)) {
+            LOGGER.log(
+                    System.Logger.Level.WARNING,
+                    GuardMetrics.toType(type) + " failure at " + callSite + (null == message ? "" : ": " + message));
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package org.realityforge.braincheck;
+
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Creates the exceptions thrown by failing guards and reports the failures that are not thrown.
+ */
+final class FailureUtil {
+    private static final FailureProvider PROVIDER = new FailureProvider();
+
+    /**
+     * The message used for suppressed failures when verbose error messages are enabled.
+     */
+    static final String SUPPRESSED_FAILURE_MESSAGE =
+            "Failure suppressed as the guard has failed repeatedly. See the braincheck.failure_threshold setting.";
+
+    private FailureUtil() {}
+
+    /**
+     * Return true if the failure of a guard of the specified type should be thrown.
+     * Failures of {@link Guards#fail(java.util.function.Supplier)} are always thrown as the caller does not
+     * expect execution to continue.
+     *
+     * @param type the type of the guard.
+     * @return true if the failure should be thrown.
+     */
+    static boolean shouldThrow(final Guards.Type type) {
+        return Guards.Type.FAIL == type || BrainCheckConfig.FailureMode.THROW == BrainCheckConfig.failureMode();
+    }
+
+    /**
+     * Record or log a failure that is not thrown, as determined by {@link BrainCheckConfig#failureMode()}.
+     *
+     * @param type     the type of the guard.
+     * @param callSite the message supplier or message template that identifies the call site.
+     * @param message  the message, the code of a coded guard if verbose error messages are disabled, or null.
+     */
+    static void report(final Guards.Type type, final Object callSite, @Nullable final String message) {
+        if (BrainCheckConfig.FailureMode.RECORD == BrainCheckConfig.failureMode()) {
+            PROVIDER.record(type, callSite, message);
+        } else {
+            PROVIDER.log(type, callSite, message);
+        }
+    }
+
+    /**
+     * Return the exception to throw for a failing guard when verbose error messages are disabled.
+     * If {@link BrainCheckConfig#stacklessFailures()} is true then the exception will not capture a stack trace.
+     *
+     * @param code the code of the guard in the form <code>"[Key]-####"</code> or null if the guard is not coded.
+     * @return the exception to throw.
+     */
+    static IllegalStateException newFailure(@Nullable final String code) {
+        if (BrainCheckConfig.stacklessFailures()) {
+            return PROVIDER.newStacklessFailure(code);
+        } else {
+            return new IllegalStateException(code);
+        }
+    }
+
+    /**
+     * Return the exception to throw for a failing guard when verbose error messages are enabled.
+     * The message is rendered when the message of the exception is first requested where supported.
+     *
+     * @param message the message of the failure.
+     * @return the exception to throw.
+     */
+    static IllegalStateException newVerboseFailure(final GuardMessage message) {
+        return PROVIDER.newVerboseFailure(message);
+    }
+
+    /**
+     * Return the exception to throw for a failure suppressed by the {@link FailureGovernor}.
+     * The exception will not capture a stack trace and the message is a constant so that nothing is rendered.
+     *
+     * @return the exception to throw.
+     */
+    static IllegalStateException newSuppressedFailure() {
+        return PROVIDER.newStacklessFailure(
+                BrainCheckConfig.verboseErrorMessages() ? SUPPRESSED_FAILURE_MESSAGE : null);
+    }
+
+    private static final class FailureProvider extends AbstractFailureProvider {
+        @GwtIncompatible
+        @Override
+        IllegalStateException newStacklessFailure(@Nullable final String message) {
+            return new StacklessFailure(message);
+        }
+
+        @GwtIncompatible
+        @Override
+        IllegalStateException newVerboseFailure(final GuardMessage message) {
+            return new DeferredMessageFailure(message);
+        }
+
+        @GwtIncompatible
+        @Override
+        void record(final Guards.Type type, final Object callSite, @Nullable final String message) {
+            FailureRecorder.record(type, GuardSites.get(callSite).getName(), message);
+        }
+
+        @GwtIncompatible
+        @Override
+        void log(final Guards.Type type, final Object callSite, @Nullable final String message) {
+            FailureRecorder.log(type, GuardSites.get(callSite).getName(), message);
+        }
+    }
+
+    private abstract static class AbstractFailureProvider {
+        IllegalStateException newStacklessFailure(@Nullable final String message) {
+            return new IllegalStateException(message);
+        }
+
+        /**
+         * The message is rendered eagerly as deferring it would require overriding {@link Throwable#getMessage()}
+         * which is not reliable in GWT and J2CL as the message is copied to the backing JavaScript error when
+         * the exception is constructed.
+         */
+        IllegalStateException newVerboseFailure(final GuardMessage message) {
+            return new IllegalStateException(message.get());
+        }
+
+        void record(final Guards.Type type, final Object callSite, @Nullable final String message) {}
+
+        void log(final Guards.Type type, final Object callSite, @Nullable final String message) {}
+    }
+}
@@ -0,0 +1,201 @@
+package org.realityforge.braincheck;
+
+import java.util.function.Supplier;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Emits Java Flight Recorder events for guard failures and slow guard evaluations.
+ * Each method first checks whether the event type is enabled so that nothing is rendered or resolved unless a
+ * recording is interested in the event. Flight Recorder is not supported in GWT or J2CL so no events are emitted
+ * in those environments.
+ */
+final class FlightRecorderUtil {
+    private static final FlightRecorderProvider PROVIDER = new FlightRecorderProvider();
+
+    private FlightRecorderUtil() {}
+
+    /**
+     * Emit a failure event if the event type is enabled.
+     *
+     * @param type       the type of the guard.
+     * @param callSite   the message supplier or message template that identifies the call site.
+     * @param key        the key that identifies the library or subsystem that owns the code or null if the guard
+     *                   is not coded.
+     * @param code       the code of the guard. Ignored if the key is null.
+     * @param message    the message supplier. It is only invoked if verbose error messages are enabled.
+     * @param suppressed true if the failure was suppressed.
+     */
+    static void onFailure(
+            final Guards.Type type,
+            final Object callSite,
+            @Nullable final String key,
+            final int code,
+            final Supplier<String> message,
+            final boolean suppressed) {
+        PROVIDER.onFailure(type, callSite, key, code, message, suppressed);
+    }
+
+    /**
+     * Begin timing the evaluation of a condition if the slow evaluation event type is enabled.
+     *
+     * @return the event to pass to {@link #endEvaluation(Object, Guards.Type, Object, String, int)} or null if
+     *     the event type is disabled.
+     */
+    @Nullable
+    static Object beginEvaluation() {
+        return PROVIDER.beginEvaluation();
+    }
+
+    /**
+     * Complete the timing of the evaluation of a condition and emit the event if the evaluation was slow.
+     *
+     * @param event    the value returned from {@link #beginEvaluation()}.
+     * @param type     the type of the guard.
+     * @param callSite the message supplier or message template that identifies the call site.
+     * @param key      the key that identifies the library or subsystem that owns the code or null if the guard is
+     *                 not coded.
+     * @param code     the code of the guard. Ignored if the key is null.
+     */
+    static void endEvaluation(
+            @Nullable final Object event,
+            final Guards.Type type,
+            final Object callSite,
+            @Nullable final String key,
+            final int code) {
+        if (null != event) {
+            PROVIDER.endEvaluation(event, type, callSite, key, code);
+        }
+    }
+
+    /**
+     * Return the code of a guard.
+     * The code of a coded guard is derived from the key and code. Otherwise the code is extracted from the
+     * message template or, if verbose error messages are enabled, from the message.
+     *
+     * @param callSite the message supplier or message template that identifies the call site.
+     * @param key      the key that identifies the library or subsystem that owns the code or null if the guard is
+     *                 not coded.
+     * @param code     the code of the guard. Ignored if the key is null.
+     * @param message  the message or null if it has not been rendered.
+     * @return the code such as <code>Arez-0123</code> or null if the guard has no code.
+     */
+    @Nullable
+    static String findMessageCode(
+            final Object callSite, @Nullable final String key, final int code, @Nullable final String message) {
+        if (null != key) {
+            return BrainCheckUtil.toCode(key, code);
+        } else if (callSite instanceof String) {
+            return extractMessageCode((String) callSite);
+        } else {
+            return null == message ? null : extractMessageCode(message);
+        }
+    }
+
+    /**
+     * Return the code prefix of a message of the form <code>"[Key]-####: [Message]"</code>.
+     *
+     * @param message the message or message template.
+     * @return the code such as <code>Arez-0123</code> or null if the message does not start with a code.
+     */
+    @Nullable
+    static String extractMessageCode(final String message) {
+        final int separator = message.indexOf(": ");
+        final int dash = separator - 5;
+        if (dash < 1 || '-' != message.charAt(dash)) {
+            return null;
+        }
+        for (int i = dash + 1; i < separator; i++) {
+            if (!Character.isDigit(message.charAt(i))) {
+                return null;
+            }
+        }
+        for (int i = 0; i < dash; i++) {
+            final char ch = message.charAt(i);
+            if (!Character.isLetterOrDigit(ch) && '_' != ch) {
+                return null;
+            }
+        }
+        return message.substring(0, separator);
+    }
+
+    private static final class FlightRecorderProvider extends AbstractFlightRecorderProvider {
+        @GwtIncompatible
+        @Override
+        void onFailure(
+                final Guards.Type type,
+                final Object callSite,
+                @Nullable final String key,
+                final int code,
+                final Supplier<String> message,
+                final boolean suppressed) {
+            final GuardFailureEvent event = new GuardFailureEvent();
+            if (event.isEnabled()) {
+                final GuardSite site = GuardSites.get(callSite);
+                final String text =
+                        BrainCheckConfig.verboseErrorMessages() ? BrainCheckUtil.safeGetString(message) : null;
+                event.guardType = type.name();
+                event.callSite = site.getName();
+                event.caller = site.getOwnerName();
+                event.messageCode = findMessageCode(callSite, key, code, text);
+                event.message = text;
+                event.suppressed = suppressed;
+                event.commit();
+            }
+        }
+
+        @GwtIncompatible
+        @Nullable
+        @Override
+        Object beginEvaluation() {
+            final GuardEvaluationEvent event = new GuardEvaluationEvent();
+            if (event.isEnabled()) {
+                event.begin();
+                return event;
+            } else {
+                return null;
+            }
+        }
+
+        @GwtIncompatible
+        @Override
+        void endEvaluation(
+                final Object event,
+                final Guards.Type type,
+                final Object callSite,
+                @Nullable final String key,
+                final int code) {
+            final GuardEvaluationEvent evaluationEvent = (GuardEvaluationEvent) event;
+            evaluationEvent.end();
+            if (evaluationEvent.shouldCommit()) {
+                final GuardSite site = GuardSites.get(callSite);
+                evaluationEvent.guardType = type.name();
+                evaluationEvent.callSite = site.getName();
+                evaluationEvent.caller = site.getOwnerName();
+                evaluationEvent.messageCode = findMessageCode(callSite, key, code, null);
+                evaluationEvent.commit();
+            }
+        }
+    }
+
+    private abstract static class AbstractFlightRecorderProvider {
+        void onFailure(
+                final Guards.Type type,
+                final Object callSite,
+                @Nullable final String key,
+                final int code,
+                final Supplier<String> message,
+                final boolean suppressed) {}
+
+        @Nullable
+        Object beginEvaluation() {
+            return null;
+        }
+
+        void endEvaluation(
+                final Object event,
+                final Guards.Type type,
+                final Object callSite,
+                @Nullable final String key,
+                final int code) {}
+    }
+}
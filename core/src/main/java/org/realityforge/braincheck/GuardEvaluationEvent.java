@@ -0,0 +1,44 @@
+package org.realityforge.braincheck;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * A Java Flight Recorder event emitted when the evaluation of a guard condition takes longer than the threshold.
+ * The event is disabled by default as timing every evaluation has a cost. When enabled, only evaluations that
+ * take longer than the threshold configured for the recording are committed.
+ */
+@GwtIncompatible
+@Name("org.realityforge.braincheck.GuardEvaluation")
+@Label("Slow Guard Evaluation")
+@Category("BrainCheck")
+@Description("The evaluation of a guard condition took longer than the threshold")
+@Enabled(false)
+@Threshold("10 ms")
+@StackTrace
+final class GuardEvaluationEvent extends jdk.jfr.Event {
+    @Label("Guard Type")
+    @Nullable
+    String guardType;
+
+    @Label("Call Site")
+    @Description("The location of the first guard to use the message supplier or the message template")
+    @Nullable
+    String callSite;
+
+    @Label("Caller")
+    @Description("The name of the class that invoked the guard, if known")
+    @Nullable
+    String caller;
+
+    @Label("Message Code")
+    @Description("The code of the message template, such as Arez-0123, if the template has a code")
+    @Nullable
+    String messageCode;
+}
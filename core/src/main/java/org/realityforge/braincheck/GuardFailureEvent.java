@@ -0,0 +1,49 @@
+package org.realityforge.braincheck;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * A Java Flight Recorder event emitted when a guard fails.
+ * The event is enabled by default and records the stack trace so that the failing guard is visible alongside
+ * the other events in the recording.
+ */
+@GwtIncompatible
+@Name("org.realityforge.braincheck.GuardFailure")
+@Label("Guard Failure")
+@Category("BrainCheck")
+@Description("A guard failed")
+@StackTrace
+final class GuardFailureEvent extends jdk.jfr.Event {
+    @Label("Guard Type")
+    @Nullable
+    String guardType;
+
+    @Label("Call Site")
+    @Description("The location of the first guard to use the message supplier or the message template")
+    @Nullable
+    String callSite;
+
+    @Label("Caller")
+    @Description("The name of the class that invoked the guard, if known")
+    @Nullable
+    String caller;
+
+    @Label("Message Code")
+    @Description("The code of the message, such as Arez-0123, if the message has a code")
+    @Nullable
+    String messageCode;
+
+    @Label("Message")
+    @Description("The message, if verbose error messages are enabled")
+    @Nullable
+    String message;
+
+    @Label("Suppressed")
+    @Description("True if the failure was suppressed as the call site failed repeatedly")
+    boolean suppressed;
+}
@@ -0,0 +1,80 @@
+package org.realityforge.braincheck;
+
+/**
+ * Applies the {@link BrainCheckConfig#guardLevels()} setting to a guard.
+ * Guard levels are not supported in GWT or J2CL so the global configuration always applies in those environments.
+ */
+final class GuardLevelUtil {
+    private static final LevelProvider PROVIDER = new LevelProvider();
+
+    private GuardLevelUtil() {}
+
+    /**
+     * Return true if an invariant or api invariant should be checked.
+     *
+     * @param type    the type of the guard.
+     * @param enabled true if the guard type is enabled by the global configuration.
+     * @param message the message supplier or message template that identifies the call site.
+     * @return true if the guard should be checked.
+     */
+    static boolean isEnabled(final Guards.Type type, final boolean enabled, final Object message) {
+        return PROVIDER.isEnabled(type, enabled, message);
+    }
+
+    /**
+     * Return true if any guard levels are specified and thus a guard may be enabled or disabled by its level.
+     *
+     * @return true if any guard levels are specified.
+     */
+    static boolean hasGuardLevels() {
+        return PROVIDER.hasGuardLevels();
+    }
+
+    /**
+     * Return true if a cost classed invariant should be checked.
+     *
+     * @param enabled true if the cost class is enabled by the global configuration.
+     * @param message the message supplier that identifies the call site.
+     * @return true if the invariant should be checked.
+     */
+    static boolean isCostClassEnabled(final boolean enabled, final Object message) {
+        return enabled && PROVIDER.isCostClassEnabled(message);
+    }
+
+    private static final class LevelProvider extends AbstractLevelProvider {
+        @GwtIncompatible
+        @Override
+        boolean isEnabled(final Guards.Type type, final boolean enabled, final Object message) {
+            return BrainCheckConfig.guardLevels().isEmpty()
+                    ? enabled
+                    : GuardLevels.isEnabled(type, enabled, GuardSites.get(message));
+        }
+
+        @GwtIncompatible
+        @Override
+        boolean hasGuardLevels() {
+            return !BrainCheckConfig.guardLevels().isEmpty();
+        }
+
+        @GwtIncompatible
+        @Override
+        boolean isCostClassEnabled(final Object message) {
+            return BrainCheckConfig.guardLevels().isEmpty()
+                    || GuardLevels.isCostClassEnabled(GuardSites.get(message));
+        }
+    }
+
+    private abstract static class AbstractLevelProvider {
+        boolean isEnabled(final Guards.Type type, final boolean enabled, final Object message) {
+            return enabled;
+        }
+
+        boolean hasGuardLevels() {
+            return false;
+        }
+
+        boolean isCostClassEnabled(final Object message) {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package org.realityforge.braincheck;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Resolves the guard level of call sites from the {@link BrainCheckConfig#guardLevels()} setting.
+ * The level of a call site is resolved by walking the class and package hierarchy of the class that contains
+ * the guard. The result is cached by the {@link GuardSite} so the hierarchy is only walked once per call site
+ * for each configuration epoch.
+ */
+@GwtIncompatible
+final class GuardLevels {
+    /**
+     * The level of guards within a package or class.
+     */
+    enum Level {
+        /**
+         * Invariants and api invariants are not checked.
+         */
+        NONE,
+        /**
+         * Api invariants are checked and invariants are not checked.
+         */
+        API,
+        /**
+         * Invariants and api invariants are checked.
+         */
+        ALL
+    }
+
+    /**
+     * The most recently parsed setting so that the setting is only parsed when it changes.
+     */
+    @Nullable
+    private static volatile Parsed c_parsed;
+
+    private GuardLevels() {}
+
+    /**
+     * Return true if a guard of the specified type should be checked.
+     *
+     * @param type    the type of the guard.
+     * @param enabled true if the guard type is enabled by the global configuration.
+     * @param site    the site of the guard.
+     * @return true if a guard of the specified type should be checked.
+     */
+    static boolean isEnabled(final Guards.Type type, final boolean enabled, final GuardSite site) {
+        return isEnabled(type, enabled, site.getLevel());
+    }
+
+    /**
+     * Return true if a guard of the specified type should be checked.
+     *
+     * @param type    the type of the guard.
+     * @param enabled true if the guard type is enabled by the global configuration.
+     * @param level   the level that applies to the guard or null if the global configuration applies.
+     * @return true if a guard of the specified type should be checked.
+     */
+    static boolean isEnabled(final Guards.Type type, final boolean enabled, @Nullable final Level level) {
+        if (null == level) {
+            return enabled;
+        } else if (Guards.Type.API_INVARIANT == type) {
+            return Level.NONE != level;
+        } else {
+            return Level.ALL == level;
+        }
+    }
+
+    /**
+     * Return true if a cost classed invariant that is enabled by the global configuration should be checked.
+     *
+     * @param site the site of the guard.
+     * @return true if the invariant should be checked.
+     */
+    static boolean isCostClassEnabled(final GuardSite site) {
+        final Level level = site.getLevel();
+        return null == level || Level.ALL == level;
+    }
+
+    /**
+     * Return the level for the specified class by finding the most specific entry in the setting.
+     *
+     * @param className the name of the class that contains the guard.
+     * @return the level or null if no entry matches the class.
+     */
+    @Nullable
+    static Level resolve(final String className) {
+        final String setting = BrainCheckConfig.guardLevels();
+        Parsed parsed = c_parsed;
+        if (null == parsed || !parsed._setting.equals(setting)) {
+            parsed = new Parsed(setting, parse(setting));
+            c_parsed = parsed;
+        }
+        final Map<String, Level> levels = parsed._levels;
+        if (levels.isEmpty()) {
+            return null;
+        }
+        String name = className;
+        while (true) {
+            final Level level = levels.get(name);
+            if (null != level) {
+                return level;
+            }
+            final int index = Math.max(name.lastIndexOf('.'), name.lastIndexOf('$'));
+            if (index < 0) {
+                return levels.get("");
+            }
+            name = name.substring(0, index);
+        }
+    }
+
+    /**
+     * Parse the guard levels setting.
+     *
+     * @param value the value of the setting.
+     * @return the levels keyed by package or class name.
+     * @throws IllegalStateException if the value is not a valid setting.
+     */
+    static Map<String, Level> parse(final String value) {
+        final Map<String, Level> levels = new HashMap<>();
+        int start = 0;
+        while (start <= value.length()) {
+            final int end = value.indexOf(',', start);
+            final String entry = value.substring(start, end < 0 ? value.length() : end).trim();
+            if (!entry.isEmpty()) {
+                final int index = entry.indexOf('=');
+                final Level level = index < 0 ? null : parseLevel(entry.substring(index + 1).trim());
+                if (null == level) {
+                    throw new IllegalStateException("Invalid value '" + value + "' specified for setting "
+                            + "braincheck.guard_levels. Expected a comma separated list of entries of the form "
+                            + "'name=level' where level is one of 'none', 'api' or 'all'");
+                }
+                levels.put(entry.substring(0, index).trim(), level);
+            }
+            start = end < 0 ? value.length() + 1 : end + 1;
+        }
+        return levels;
+    }
+
+    @Nullable
+    private static Level parseLevel(final String value) {
+        try {
+            return Level.valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (final IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static final class Parsed {
+        private final String _setting;
+        private final Map<String, Level> _levels;
+
+        Parsed(final String setting, final Map<String, Level> levels) {
+            _setting = setting;
+            _levels = levels;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package org.realityforge.braincheck;
+
+import java.util.function.Supplier;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * The message of a failing guard that is rendered on demand.
+ * The message retains the message supplier or the message template and arguments and is only rendered the first
+ * time it is requested. The rendered message is cached so that the exception, the flight recorder event and any
+ * other consumer of the failure share a single rendering. A failure that is caught and handled without
+ * requesting the message never renders it.
+ *
+ * <p>As rendering is deferred, the message reflects the state of the arguments at the time the message is first
+ * requested rather than the time the guard failed.</p>
+ */
+final class GuardMessage implements Supplier<String> {
+    @Nullable
+    private final Supplier<String> _supplier;
+    @Nullable
+    private final String _template;
+    @Nullable
+    private final Object[] _arguments;
+    /**
+     * The rendered message or null if it has not been rendered. Rendering is idempotent and the result is
+     * immutable so concurrent renderings may race without harm.
+     */
+    @Nullable
+    private String _message;
+
+    GuardMessage(final Supplier<String> supplier) {
+        _supplier = supplier;
+        _template = null;
+        _arguments = null;
+    }
+
+    GuardMessage(final String template, @Nullable final Object[] arguments) {
+        _supplier = null;
+        _template = template;
+        _arguments = arguments;
+    }
+
+    /**
+     * Return the message for the supplier, reusing the supplier if it is already a message.
+     *
+     * @param supplier the message supplier.
+     * @return the message.
+     */
+    static GuardMessage of(final Supplier<String> supplier) {
+        return supplier instanceof GuardMessage ? (GuardMessage) supplier : new GuardMessage(supplier);
+    }
+
+    /**
+     * Return the message template or null if the message was created from a message supplier.
+     *
+     * @return the message template or null.
+     */
+    @Nullable
+    String getTemplate() {
+        return _template;
+    }
+
+    /**
+     * Return the rendered message, rendering it if it has not already been rendered.
+     *
+     * @return the rendered message.
+     */
+    @Override
+    public String get() {
+        String message = _message;
+        if (null == message) {
+            message = null != _supplier
+                    ? BrainCheckUtil.safeGetString(_supplier)
+                    : BrainCheckUtil.safeFormat(String.valueOf(_template), _arguments);
+            _message = message;
+        }
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return get();
+    }
+}
@@ -0,0 +1,304 @@
+package org.realityforge.braincheck;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Metrics collected for guards when {@link BrainCheckConfig#collectMetrics()} is true.
+ * The number of evaluations, failures and exceptions generated whilst evaluating conditions are counted per
+ * guard type and per call site. See {@link GuardSites} for details on how call sites are identified.
+ *
+ * <p>The counters are striped using {@link LongAdder} so that guards executing on many threads do not contend.
+ * Taking a snapshot never blocks the threads performing the guards but the snapshot is not atomic and counts
+ * recorded while the snapshot is being taken may or may not be included.</p>
+ */
+@GwtIncompatible
+public final class GuardMetrics {
+    private static final int TYPE_COUNT = Guards.Type.values().length;
+    /**
+     * The {@link Type} enum declares its values in the same order as {@link Guards.Type}.
+     */
+    private static final Type[] TYPES = Type.values();
+    private static final LongAdder[] EVALUATION_COUNTS = newCounters();
+    private static final LongAdder[] FAILURE_COUNTS = newCounters();
+    private static final LongAdder[] CONDITION_EXCEPTION_COUNTS = newCounters();
+    private static final LongAdder[] SUPPRESSED_FAILURE_COUNTS = newCounters();
+
+    private GuardMetrics() {}
+
+    /**
+     * The type of a guard.
+     */
+    public enum Type {
+        /**
+         * A guard type indicating a failure.
+         */
+        FAIL,
+        /**
+         * A guard type indicating an invariant condition in the codebase.
+         */
+        INVARIANT,
+        /**
+         * A guard type indicating an api invariant condition in the codebase.
+         */
+        API_INVARIANT
+    }
+
+    /**
+     * Return a snapshot of the current metrics.
+     *
+     * @return a snapshot of the current metrics.
+     */
+    public static Snapshot snapshot() {
+        final List<Counts> totals = new ArrayList<>();
+        for (final Guards.Type type : Guards.Type.values()) {
+            final int index = type.ordinal();
+            totals.add(new Counts(
+                    type.name(),
+                    toType(type),
+                    null,
+                    EVALUATION_COUNTS[index].sum(),
+                    FAILURE_COUNTS[index].sum(),
+                    CONDITION_EXCEPTION_COUNTS[index].sum(),
+                    SUPPRESSED_FAILURE_COUNTS[index].sum()));
+        }
+        final List<Counts> callSites = new ArrayList<>();
+        for (final GuardSite site : GuardSites.getSites()) {
+            final Guards.Type type = site.getType();
+            if (null != type) {
+                callSites.add(new Counts(
+                        site.getName(),
+                        toType(type),
+                        site.getCode(),
+                        site.getEvaluationCount().sum(),
+                        site.getFailureCount().sum(),
+                        site.getConditionExceptionCount().sum(),
+                        site.getSuppressedFailureCount().sum()));
+            }
+        }
+        callSites.sort(Comparator.comparing(Counts::getName));
+        return new Snapshot(totals, callSites);
+    }
+
+    /**
+     * Reset all counters to zero.
+     * This should only be invoked when no guards are executing as counts recorded concurrently may be lost.
+     */
+    public static void reset() {
+        for (int i = 0; i < TYPE_COUNT; i++) {
+            EVALUATION_COUNTS[i].reset();
+            FAILURE_COUNTS[i].reset();
+            CONDITION_EXCEPTION_COUNTS[i].reset();
+            SUPPRESSED_FAILURE_COUNTS[i].reset();
+        }
+        for (final GuardSite site : GuardSites.getSites()) {
+            site.getEvaluationCount().reset();
+            site.getFailureCount().reset();
+            site.getConditionExceptionCount().reset();
+            site.getSuppressedFailureCount().reset();
+        }
+    }
+
+    static void recordEvaluation(final Guards.Type type, final GuardSite site) {
+        EVALUATION_COUNTS[type.ordinal()].increment();
+        site.recordType(type);
+        site.getEvaluationCount().increment();
+    }
+
+    static void recordFailure(final Guards.Type type, final GuardSite site) {
+        FAILURE_COUNTS[type.ordinal()].increment();
+        site.recordType(type);
+        site.getFailureCount().increment();
+    }
+
+    static void recordConditionException(final Guards.Type type, final GuardSite site) {
+        CONDITION_EXCEPTION_COUNTS[type.ordinal()].increment();
+        site.recordType(type);
+        site.getConditionExceptionCount().increment();
+    }
+
+    static void recordSuppressedFailure(final Guards.Type type, final GuardSite site) {
+        SUPPRESSED_FAILURE_COUNTS[type.ordinal()].increment();
+        site.recordType(type);
+        site.getSuppressedFailureCount().increment();
+    }
+
+    static Type toType(final Guards.Type type) {
+        return TYPES[type.ordinal()];
+    }
+
+    private static LongAdder[] newCounters() {
+        final LongAdder[] counters = new LongAdder[TYPE_COUNT];
+        for (int i = 0; i < TYPE_COUNT; i++) {
+            counters[i] = new LongAdder();
+        }
+        return counters;
+    }
+
+    /**
+     * A point in time view of the metrics.
+     */
+    public static final class Snapshot {
+        private final List<Counts> _totals;
+        private final List<Counts> _callSites;
+
+        Snapshot(final List<Counts> totals, final List<Counts> callSites) {
+            _totals = Collections.unmodifiableList(totals);
+            _callSites = Collections.unmodifiableList(callSites);
+        }
+
+        /**
+         * Return the counts for each guard type.
+         *
+         * @return the counts for each guard type.
+         */
+        public List<Counts> getTotals() {
+            return _totals;
+        }
+
+        /**
+         * Return the counts for the specified guard type.
+         *
+         * @param type the guard type.
+         * @return the counts for the specified guard type.
+         */
+        public Counts getTotal(final Type type) {
+            return _totals.get(type.ordinal());
+        }
+
+        /**
+         * Return the counts for each call site that has recorded a metric, sorted by name.
+         *
+         * @return the counts for each call site.
+         */
+        public List<Counts> getCallSites() {
+            return _callSites;
+        }
+
+        /**
+         * Return the counts for the call site with the specified name or null if no such call site exists.
+         *
+         * @param name the name of the call site.
+         * @return the counts for the call site or null.
+         */
+        @Nullable
+        public Counts findCallSite(final String name) {
+            for (final Counts counts : _callSites) {
+                if (counts.getName().equals(name)) {
+                    return counts;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * The counts recorded for a guard type or for a call site.
+     */
+    public static final class Counts {
+        private final String _name;
+        private final Type _type;
+        @Nullable
+        private final String _code;
+        private final long _evaluationCount;
+        private final long _failureCount;
+        private final long _conditionExceptionCount;
+        private final long _suppressedFailureCount;
+
+        Counts(
+                final String name,
+                final Type type,
+                @Nullable final String code,
+                final long evaluationCount,
+                final long failureCount,
+                final long conditionExceptionCount,
+                final long suppressedFailureCount) {
+            _name = Objects.requireNonNull(name);
+            _type = Objects.requireNonNull(type);
+            _code = code;
+            _evaluationCount = evaluationCount;
+            _failureCount = failureCount;
+            _conditionExceptionCount = conditionExceptionCount;
+            _suppressedFailureCount = suppressedFailureCount;
+        }
+
+        /**
+         * Return the name of the guard type or call site.
+         * The name of a call site is the class, method and line number of the first guard to use the message
+         * supplier, such as <code>com.example.Foo.bar:42</code>, or the message template.
+         *
+         * @return the name.
+         */
+        public String getName() {
+            return _name;
+        }
+
+        public Type getType() {
+            return _type;
+        }
+
+        /**
+         * Return the code of the guard at the call site, such as <code>Arez-0012</code>.
+         * This is null for the counts of a guard type and for call sites of guards that are not coded.
+         *
+         * @return the code or null.
+         */
+        @Nullable
+        public String getCode() {
+            return _code;
+        }
+
+        public long getEvaluationCount() {
+            return _evaluationCount;
+        }
+
+        /**
+         * Return the number of times a condition was false or a fail guard was invoked.
+         * Exceptions generated whilst evaluating a condition are not included.
+         *
+         * @return the number of failures.
+         */
+        public long getFailureCount() {
+            return _failureCount;
+        }
+
+        /**
+         * Return the number of times an exception was generated whilst evaluating a condition.
+         *
+         * @return the number of exceptions generated whilst evaluating a condition.
+         */
+        public long getConditionExceptionCount() {
+            return _conditionExceptionCount;
+        }
+
+        /**
+         * Return the number of failures that were suppressed as the call site failed repeatedly.
+         * Suppressed failures are also included in the failure count or condition exception count.
+         * See {@link BrainCheckConfig#failureThreshold()} for details.
+         *
+         * @return the number of suppressed failures.
+         */
+        public long getSuppressedFailureCount() {
+            return _suppressedFailureCount;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                    Locale.ROOT,
+                    "%s[%s evaluations=%d failures=%d conditionExceptions=%d suppressedFailures=%d]",
+                    _name,
+                    _type,
+                    _evaluationCount,
+                    _failureCount,
+                    _conditionExceptionCount,
+                    _suppressedFailureCount);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package org.realityforge.braincheck;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The time taken to evaluate the condition of a single call site.
+ * The time is recorded in a histogram with buckets whose bounds are powers of two nanoseconds so that recording
+ * an evaluation only requires a few arithmetic operations and an atomic increment. The counters are striped using
+ * {@link LongAdder} so that threads evaluating the condition of the same call site do not contend.
+ */
+@GwtIncompatible
+final class GuardProfile {
+    /**
+     * The number of buckets in the histogram. Evaluations that take longer than the upper bound of the last
+     * bucket are recorded in the last bucket.
+     */
+    static final int BUCKET_COUNT = 40;
+    /**
+     * The duration of the window over which the evaluation time is compared against the invariant budget.
+     */
+    static final long BUDGET_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final LongAdder _evaluationCount = new LongAdder();
+    private final LongAdder _totalNanos = new LongAdder();
+    private final LongAccumulator _maxNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder[] _buckets = newBuckets();
+    private final AtomicBoolean _demoted = new AtomicBoolean();
+    private final AtomicLong _windowStart = new AtomicLong(System.nanoTime());
+    private final LongAdder _windowNanos = new LongAdder();
+
+    /**
+     * Return the index of the bucket that holds the specified duration.
+     * Bucket <code>0</code> holds durations of <code>0</code> nanoseconds and bucket <code>i</code> holds durations
+     * of at least <code>2^(i-1)</code> and less than <code>2^i</code> nanoseconds.
+     *
+     * @param nanos the duration in nanoseconds.
+     * @return the index of the bucket.
+     */
+    static int bucketIndex(final long nanos) {
+        return Math.min(BUCKET_COUNT - 1, 64 - Long.numberOfLeadingZeros(Math.max(0, nanos)));
+    }
+
+    void record(final long nanos) {
+        _evaluationCount.increment();
+        _totalNanos.add(nanos);
+        _maxNanos.accumulate(nanos);
+        _buckets[bucketIndex(nanos)].increment();
+    }
+
+    /**
+     * Add the duration to the current budget window, starting a new window if the current window has elapsed.
+     * An evaluation that races with the start of a new window may be attributed to either window.
+     *
+     * @param now   the current value of {@link System#nanoTime()}.
+     * @param nanos the duration of the evaluation in nanoseconds.
+     * @return the time spent evaluating the condition in the current window.
+     */
+    long addToWindow(final long now, final long nanos) {
+        final long windowStart = _windowStart.get();
+        if (now - windowStart >= BUDGET_WINDOW_NANOS && _windowStart.compareAndSet(windowStart, now)) {
+            _windowNanos.reset();
+        }
+        _windowNanos.add(nanos);
+        return _windowNanos.sum();
+    }
+
+    long getEvaluationCount() {
+        return _evaluationCount.sum();
+    }
+
+    long getTotalNanos() {
+        return _totalNanos.sum();
+    }
+
+    long getMaxNanos() {
+        return _maxNanos.get();
+    }
+
+    long[] getBuckets() {
+        final long[] buckets = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets[i] = _buckets[i].sum();
+        }
+        return buckets;
+    }
+
+    boolean isDemoted() {
+        return _demoted.get();
+    }
+
+    /**
+     * Demote the call site.
+     *
+     * @return true if the call site was demoted by this invocation, false if it was already demoted.
+     */
+    boolean demote() {
+        return _demoted.compareAndSet(false, true);
+    }
+
+    void reset() {
+        _evaluationCount.reset();
+        _totalNanos.reset();
+        _maxNanos.reset();
+        for (final LongAdder bucket : _buckets) {
+            bucket.reset();
+        }
+        _demoted.set(false);
+        _windowStart.set(System.nanoTime());
+        _windowNanos.reset();
+    }
+
+    private static LongAdder[] newBuckets() {
+        final LongAdder[] buckets = new LongAdder[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets[i] = new LongAdder();
+        }
+        return buckets;
+    }
+}
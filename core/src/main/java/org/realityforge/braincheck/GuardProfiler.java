@@ -0,0 +1,264 @@
+package org.realityforge.braincheck;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Profiles the time taken to evaluate invariant conditions when {@link BrainCheckConfig#profileInvariants()} is true.
+ * The time taken to evaluate each deferred condition is measured using {@link System#nanoTime()} and recorded in
+ * a histogram per call site. Guards that are passed an already evaluated condition are not profiled as there is no
+ * evaluation to measure.
+ *
+ * <p>If {@link BrainCheckConfig#invariantBudget()} is greater than zero then a call site whose evaluation time
+ * within any one second window exceeds the budget is demoted. The condition of a demoted call site is only
+ * evaluated for approximately 1 in {@link #DEMOTED_SAMPLE_RATE} checks. Each demotion is logged as a warning via
+ * {@link System.Logger} and demoted call sites are flagged in the snapshot. Demoted call sites are restored
+ * when the profiler is reset.</p>
+ */
+@GwtIncompatible
+public final class GuardProfiler {
+    /**
+     * The rate at which the conditions of demoted call sites are sampled.
+     */
+    public static final int DEMOTED_SAMPLE_RATE = 64;
+
+    private static final LongAdder DEMOTION_COUNT = new LongAdder();
+    private static final System.Logger LOGGER = System.getLogger(GuardProfiler.class.getName());
+
+    private GuardProfiler() {}
+
+    /**
+     * Return a snapshot of the profiles of all call sites that have been profiled.
+     *
+     * @return a snapshot of the profiles.
+     */
+    public static Snapshot snapshot() {
+        final List<Profile> callSites = new ArrayList<>();
+        for (final GuardSite site : GuardSites.getSites()) {
+            final GuardProfile profile = site.findProfile();
+            final Guards.Type type = site.getType();
+            if (null != profile && null != type) {
+                callSites.add(new Profile(
+                        site.getName(),
+                        GuardMetrics.toType(type),
+                        profile.getEvaluationCount(),
+                        profile.getTotalNanos(),
+                        profile.getMaxNanos(),
+                        profile.getBuckets(),
+                        profile.isDemoted()));
+            }
+        }
+        callSites.sort(Comparator.comparingLong(Profile::getTotalNanos)
+                .reversed()
+                .thenComparing(Profile::getName));
+        return new Snapshot(callSites, DEMOTION_COUNT.sum());
+    }
+
+    /**
+     * Reset the profiles of all call sites and restore any demoted call sites.
+     * This should only be invoked when no guards are executing as evaluations recorded concurrently may be lost.
+     */
+    public static void reset() {
+        for (final GuardSite site : GuardSites.getSites()) {
+            final GuardProfile profile = site.findProfile();
+            if (null != profile) {
+                profile.reset();
+            }
+        }
+        DEMOTION_COUNT.reset();
+    }
+
+    /**
+     * Return the exclusive upper bound in nanoseconds of the durations recorded in the specified histogram bucket.
+     * The last bucket also holds all durations beyond its upper bound.
+     *
+     * @param index the index of the bucket.
+     * @return the exclusive upper bound of the bucket in nanoseconds.
+     */
+    public static long getBucketUpperBound(final int index) {
+        return 1L << index;
+    }
+
+    /**
+     * Record the evaluation of the condition of the specified site.
+     *
+     * @param type  the type of the guard.
+     * @param site  the site of the guard.
+     * @param end   the value of {@link System#nanoTime()} when the evaluation completed.
+     * @param nanos the duration of the evaluation in nanoseconds.
+     */
+    static void record(final Guards.Type type, final GuardSite site, final long end, final long nanos) {
+        site.recordType(type);
+        final GuardProfile profile = site.getProfile();
+        profile.record(nanos);
+        final int budget = BrainCheckConfig.invariantBudget();
+        if (budget > 0
+                && !profile.isDemoted()
+                && profile.addToWindow(end, nanos) > TimeUnit.MILLISECONDS.toNanos(budget)
+                && profile.demote()) {
+            DEMOTION_COUNT.increment();
+            if (LOGGER.isLoggable(System.Logger.Level.WARNING)) {
+                LOGGER.log(
+                        System.Logger.Level.WARNING,
+                        "Guard call site " + site.getName() + " exceeded the invariant budget of " + budget
+                                + "ms per second after " + profile.getEvaluationCount()
+                                + " evaluations and has been demoted to sampled checking");
+            }
+        }
+    }
+
+    /**
+     * Return true if the condition of the site should be evaluated by the current check.
+     *
+     * @param site the site of the guard.
+     * @return true if the condition should be evaluated.
+     */
+    static boolean shouldCheck(final GuardSite site) {
+        return !site.isDemoted() || 0 == ThreadLocalRandom.current().nextInt(DEMOTED_SAMPLE_RATE);
+    }
+
+    /**
+     * A point in time view of the profiles.
+     */
+    public static final class Snapshot {
+        private final List<Profile> _callSites;
+        private final long _demotionCount;
+
+        Snapshot(final List<Profile> callSites, final long demotionCount) {
+            _callSites = Collections.unmodifiableList(callSites);
+            _demotionCount = demotionCount;
+        }
+
+        /**
+         * Return the profile of each call site, sorted so that the call sites with the greatest total
+         * evaluation time are first.
+         *
+         * @return the profile of each call site.
+         */
+        public List<Profile> getCallSites() {
+            return _callSites;
+        }
+
+        /**
+         * Return the profile for the call site with the specified name or null if no such call site exists.
+         *
+         * @param name the name of the call site.
+         * @return the profile for the call site or null.
+         */
+        @Nullable
+        public Profile findCallSite(final String name) {
+            for (final Profile profile : _callSites) {
+                if (profile.getName().equals(name)) {
+                    return profile;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Return the number of call sites demoted since the profiler was last reset.
+         *
+         * @return the number of call sites demoted.
+         */
+        public long getDemotionCount() {
+            return _demotionCount;
+        }
+    }
+
+    /**
+     * The profile of a single call site.
+     */
+    public static final class Profile {
+        private final String _name;
+        private final GuardMetrics.Type _type;
+        private final long _evaluationCount;
+        private final long _totalNanos;
+        private final long _maxNanos;
+        private final long[] _buckets;
+        private final boolean _demoted;
+
+        Profile(
+                final String name,
+                final GuardMetrics.Type type,
+                final long evaluationCount,
+                final long totalNanos,
+                final long maxNanos,
+                final long[] buckets,
+                final boolean demoted) {
+            _name = Objects.requireNonNull(name);
+            _type = Objects.requireNonNull(type);
+            _evaluationCount = evaluationCount;
+            _totalNanos = totalNanos;
+            _maxNanos = maxNanos;
+            _buckets = Objects.requireNonNull(buckets);
+            _demoted = demoted;
+        }
+
+        /**
+         * Return the name of the call site.
+         * The name of a call site is the class, method and line number of the first guard to use the message
+         * supplier, such as <code>com.example.Foo.bar:42</code>, or the message template.
+         *
+         * @return the name.
+         */
+        public String getName() {
+            return _name;
+        }
+
+        public GuardMetrics.Type getType() {
+            return _type;
+        }
+
+        public long getEvaluationCount() {
+            return _evaluationCount;
+        }
+
+        public long getTotalNanos() {
+            return _totalNanos;
+        }
+
+        public long getMaxNanos() {
+            return _maxNanos;
+        }
+
+        /**
+         * Return the number of evaluations recorded in each bucket of the histogram.
+         * See {@link GuardProfiler#getBucketUpperBound(int)} for the bounds of each bucket.
+         *
+         * @return the number of evaluations recorded in each bucket.
+         */
+        public long[] getBuckets() {
+            return _buckets.clone();
+        }
+
+        /**
+         * Return true if the call site was demoted to sampled checking as it exceeded the invariant budget.
+         *
+         * @return true if the call site was demoted.
+         */
+        public boolean isDemoted() {
+            return _demoted;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                    Locale.ROOT,
+                    "%s[%s evaluations=%d totalNanos=%d maxNanos=%d demoted=%s]",
+                    _name,
+                    _type,
+                    _evaluationCount,
+                    _totalNanos,
+                    _maxNanos,
+                    _demoted);
+        }
+    }
+}
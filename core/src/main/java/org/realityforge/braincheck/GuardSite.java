@@ -0,0 +1,249 @@
+package org.realityforge.braincheck;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * State associated with a single guard call site.
+ * Call sites are identified by the class of the message supplier or by the invoking class and message template.
+ * See {@link GuardSites} for details on how sites are resolved.
+ *
+ * <p>The adaptive state is updated without synchronization. Concurrent updates may be lost but this only affects
+ * how frequently the condition is evaluated and never whether a failed condition is reported.</p>
+ */
+@GwtIncompatible
+final class GuardSite {
+    /**
+     * The number of consecutive passing evaluations required before the evaluation interval is doubled.
+     */
+    static final int EVALUATIONS_PER_LEVEL = 1024;
+    /**
+     * The maximum level. The condition of a stable call site is evaluated at least once every 2^MAX_LEVEL checks.
+     */
+    static final int MAX_LEVEL = 10;
+    private final String _name;
+    /**
+     * The name of the class that contains the guard or null if it is unknown.
+     */
+    @Nullable
+    private final String _ownerName;
+    private final LongAdder _evaluationCount = new LongAdder();
+    private final LongAdder _failureCount = new LongAdder();
+    private final LongAdder _conditionExceptionCount = new LongAdder();
+    private final LongAdder _suppressedFailureCount = new LongAdder();
+    /**
+     * The number of failures within the current failure window.
+     */
+    private final AtomicInteger _windowFailureCount = new AtomicInteger();
+    /**
+     * The type of the first guard recorded against the site.
+     */
+    private volatile Guards.@Nullable Type _type;
+    /**
+     * The code of the guard, such as <code>Arez-0012</code>, if the guard is coded.
+     */
+    @Nullable
+    private volatile String _code;
+
+    /**
+     * The value of {@link System#nanoTime()} when the current failure window started.
+     */
+    private volatile long _windowStart;
+
+    private volatile int _windowConfigEpoch;
+    /**
+     * The level resolved from the guard levels setting or null if no entry matches the owner.
+     */
+    private volatile GuardLevels.@Nullable Level _level;
+    /**
+     * The configuration epoch when the level was resolved. The level is written before the epoch so a thread
+     * that observes the current epoch also observes the level resolved for it.
+     */
+    private volatile int _levelConfigEpoch;
+    private volatile boolean _levelResolved;
+    /**
+     * The profile of the time taken to evaluate the condition. This is created when first required.
+     */
+    @Nullable
+    private volatile GuardProfile _profile;
+    private int _configEpoch;
+    private int _passCount;
+    private int _skipCount;
+
+    GuardSite(final String name) {
+        this(name, null);
+    }
+
+    GuardSite(final String name, @Nullable final String ownerName) {
+        _name = name;
+        _ownerName = ownerName;
+        _configEpoch = BrainCheckConfig.configEpoch();
+        _windowConfigEpoch = _configEpoch;
+        _windowStart = System.nanoTime();
+    }
+
+    String getName() {
+        return _name;
+    }
+
+    @Nullable
+    String getOwnerName() {
+        return _ownerName;
+    }
+
+    /**
+     * Return the level that applies to the site as specified by {@link BrainCheckConfig#guardLevels()}.
+     * The level is resolved when first requested and again after any configuration setting changes.
+     *
+     * @return the level or null if the global configuration applies to the site.
+     */
+    GuardLevels.@Nullable Level getLevel() {
+        final int configEpoch = BrainCheckConfig.configEpoch();
+        if (!_levelResolved || _levelConfigEpoch != configEpoch) {
+            _level = null == _ownerName ? null : GuardLevels.resolve(_ownerName);
+            _levelConfigEpoch = configEpoch;
+            _levelResolved = true;
+        }
+        return _level;
+    }
+
+    /**
+     * Return the profile for the site, creating it if required.
+     *
+     * @return the profile.
+     */
+    GuardProfile getProfile() {
+        final GuardProfile profile = _profile;
+        return null != profile ? profile : createProfile();
+    }
+
+    @Nullable
+    GuardProfile findProfile() {
+        return _profile;
+    }
+
+    /**
+     * Return true if the site has been demoted as it exceeded the invariant budget.
+     *
+     * @return true if the site has been demoted.
+     */
+    boolean isDemoted() {
+        final GuardProfile profile = _profile;
+        return null != profile && profile.isDemoted();
+    }
+
+    private synchronized GuardProfile createProfile() {
+        GuardProfile profile = _profile;
+        if (null == profile) {
+            profile = new GuardProfile();
+            _profile = profile;
+        }
+        return profile;
+    }
+
+    Guards.@Nullable Type getType() {
+        return _type;
+    }
+
+    LongAdder getEvaluationCount() {
+        return _evaluationCount;
+    }
+
+    LongAdder getFailureCount() {
+        return _failureCount;
+    }
+
+    LongAdder getConditionExceptionCount() {
+        return _conditionExceptionCount;
+    }
+
+    LongAdder getSuppressedFailureCount() {
+        return _suppressedFailureCount;
+    }
+
+    void recordType(final Guards.Type type) {
+        if (null == _type) {
+            _type = type;
+        }
+    }
+
+    @Nullable
+    String getCode() {
+        return _code;
+    }
+
+    /**
+     * Record the code of the coded guard at the site.
+     * The code is only rendered the first time it is recorded.
+     *
+     * @param key  the key that identifies the library or subsystem that owns the code.
+     * @param code the code of the guard.
+     */
+    void recordCode(final String key, final int code) {
+        if (null == _code) {
+            _code = BrainCheckUtil.toCode(key, code);
+        }
+    }
+
+    /**
+     * Return true if the condition should be evaluated by the current check.
+     * The condition is evaluated by every check until {@link #EVALUATIONS_PER_LEVEL} consecutive evaluations
+     * have passed, after which the interval between evaluations doubles every {@link #EVALUATIONS_PER_LEVEL}
+     * evaluations until it reaches <code>2^MAX_LEVEL</code>.
+     *
+     * @return true if the condition should be evaluated.
+     */
+    boolean shouldCheckAdaptively() {
+        final int configEpoch = BrainCheckConfig.configEpoch();
+        if (_configEpoch != configEpoch) {
+            _configEpoch = configEpoch;
+            reset();
+        }
+        if (_skipCount > 0) {
+            _skipCount--;
+            return false;
+        } else {
+            final int level = Math.min(MAX_LEVEL, _passCount / EVALUATIONS_PER_LEVEL);
+            if (level < MAX_LEVEL) {
+                _passCount++;
+            }
+            _skipCount = (1 << level) - 1;
+            return true;
+        }
+    }
+
+    /**
+     * Invoked when the condition fails so that the condition is evaluated by every subsequent check.
+     */
+    void onFailure() {
+        reset();
+    }
+
+    /**
+     * Record a failure and return true if the failure should be suppressed.
+     * A failure is suppressed if more than <code>threshold</code> failures have occurred in the current window.
+     * The window restarts when it has elapsed or any configuration setting is changed. Concurrent failures
+     * that occur as the window restarts may be counted against either window.
+     *
+     * @param threshold the number of failures reported in full within a window.
+     * @param window    the duration of the window in milliseconds.
+     * @return true if the failure should be suppressed.
+     */
+    boolean shouldSuppressFailure(final int threshold, final int window) {
+        final long now = System.nanoTime();
+        final int configEpoch = BrainCheckConfig.configEpoch();
+        if (_windowConfigEpoch != configEpoch || now - _windowStart >= TimeUnit.MILLISECONDS.toNanos(window)) {
+            _windowConfigEpoch = configEpoch;
+            _windowStart = now;
+            _windowFailureCount.set(0);
+        }
+        return _windowFailureCount.incrementAndGet() > threshold;
+    }
+
+    private void reset() {
+        _passCount = 0;
+        _skipCount = 0;
+    }
+}
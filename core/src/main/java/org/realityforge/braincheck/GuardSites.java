@@ -0,0 +1,185 @@
+package org.realityforge.braincheck;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Resolves the {@link GuardSite} for a guard invocation.
+ * A lambda or method reference has a distinct class per location in the source code so the class of the
+ * message supplier identifies the call site. Guards that use a message template are identified by the template.
+ * Either way the site is found without walking the stack. The stack is only walked once, when a site is created, to
+ * find the class that invoked the guard. The site of a message supplier is named after the class, method and line
+ * number of the first guard to use the supplier, as the name of the lambda class differs between runs. If the first
+ * guard is not in the class that declares the supplier then the site is named after the declaring class. Templates
+ * are expected to be constants so the number of distinct templates that are tracked is bounded. Any templates beyond
+ * the limit share a single overflow site so their metrics, adaptive state and failure limits are combined. The
+ * first template to overflow is logged as a warning and the number of lookups that resolved to the overflow site is
+ * available via {@link #getOverflowCount()}.
+ *
+ * <p>The class that contains the guard is recorded when the site is created so that
+ * {@link BrainCheckConfig#guardLevels()} can be applied. The class is derived from the nest host of the
+ * message supplier class or, for message templates, from the class that first invoked a guard with the template.
+ * A template that is shared by several classes is thus subject to the level of the class that first used it.
+ * The overflow site does not record the class and always uses the global configuration.</p>
+ */
+@GwtIncompatible
+final class GuardSites {
+    /**
+     * The maximum number of distinct message templates that will be tracked.
+     */
+    static final int MAX_TEMPLATE_SITES = 4096;
+    /**
+     * The name of the site shared by all templates beyond the limit.
+     */
+    static final String OVERFLOW_SITE_NAME = "<overflow>";
+
+    private static final ClassValue<GuardSite> SUPPLIER_SITES = new ClassValue<>() {
+        @Override
+        protected GuardSite computeValue(final Class<?> type) {
+            final Class<?> owner = type.getNestHost();
+            return register(new GuardSite(toSupplierSiteName(owner), owner.getName()));
+        }
+    };
+    private static final ConcurrentHashMap<String, GuardSite> TEMPLATE_SITES = new ConcurrentHashMap<>();
+    /**
+     * The number of template sites that have been created. This may briefly exceed the limit when templates
+     * are added concurrently.
+     */
+    static final AtomicInteger TEMPLATE_SITE_COUNT = new AtomicInteger();
+    /**
+     * All retained sites so that they can be enumerated. This may contain sites that lost a race to be
+     * associated with a class but such sites are never used so will never record any metrics.
+     */
+    private static final Queue<GuardSite> SITES = new ConcurrentLinkedQueue<>();
+
+    private static final GuardSite OVERFLOW_SITE = register(new GuardSite(OVERFLOW_SITE_NAME));
+    private static final LongAdder OVERFLOW_COUNT = new LongAdder();
+    private static final AtomicBoolean OVERFLOW_LOGGED = new AtomicBoolean();
+    private static final StackWalker WALKER =
+            StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
+    private static final System.Logger LOGGER = System.getLogger(GuardSites.class.getName());
+
+    private GuardSites() {}
+
+    /**
+     * Return the site for the guard that uses the specified message supplier or message template.
+     *
+     * @param message the message supplier or the message template.
+     * @return the site.
+     */
+    static GuardSite get(final Object message) {
+        if (message instanceof String) {
+            final String messageTemplate = (String) message;
+            final GuardSite site = TEMPLATE_SITES.get(messageTemplate);
+            if (null != site) {
+                return site;
+            } else if (TEMPLATE_SITE_COUNT.get() < MAX_TEMPLATE_SITES) {
+                return TEMPLATE_SITES.computeIfAbsent(messageTemplate, GuardSites::newTemplateSite);
+            } else {
+                return getOverflowSite(messageTemplate);
+            }
+        } else {
+            assert message instanceof Supplier;
+            return SUPPLIER_SITES.get(message.getClass());
+        }
+    }
+
+    private static GuardSite newTemplateSite(final String messageTemplate) {
+        TEMPLATE_SITE_COUNT.incrementAndGet();
+        final Class<?> owner = findGuardCaller();
+        return register(new GuardSite(messageTemplate, null == owner ? null : owner.getName()));
+    }
+
+    /**
+     * Return the number of lookups of a message template that resolved to the overflow site.
+     *
+     * @return the number of lookups that resolved to the overflow site.
+     */
+    static long getOverflowCount() {
+        return OVERFLOW_COUNT.sum();
+    }
+
+    private static GuardSite getOverflowSite(final String messageTemplate) {
+        OVERFLOW_COUNT.increment();
+        if (!OVERFLOW_LOGGED.get()
+                && OVERFLOW_LOGGED.compareAndSet(false, true)
+                && LOGGER.isLoggable(System.Logger.Level.WARNING)) {
+            LOGGER.log(
+                    System.Logger.Level.WARNING,
+                    "The number of distinct guard message templates exceeds " + MAX_TEMPLATE_SITES
+                            + ". The template '" + messageTemplate + "' and any subsequent templates share the"
+                            + " site named " + OVERFLOW_SITE_NAME);
+        }
+        return OVERFLOW_SITE;
+    }
+
+    /**
+     * Return a copy of all the retained sites.
+     *
+     * @return a copy of all the retained sites.
+     */
+    static List<GuardSite> getSites() {
+        return new ArrayList<>(SITES);
+    }
+
+    /**
+     * Return the nest host of the class that invoked the public method of {@link Guards} on the current stack.
+     * If the stack does not contain an invocation of a guard then the class that invoked this class is returned.
+     *
+     * @return the nest host of the class or null if it can not be determined.
+     */
+    @Nullable
+    private static Class<?> findGuardCaller() {
+        final StackWalker.@Nullable StackFrame frame = findGuardCallerFrame();
+        return null == frame ? null : frame.getDeclaringClass().getNestHost();
+    }
+
+    /**
+     * Return the name of the site for a message supplier declared by the specified class.
+     *
+     * @param owner the nest host of the class that declares the message supplier.
+     * @return the name of the site.
+     */
+    private static String toSupplierSiteName(final Class<?> owner) {
+        final StackWalker.@Nullable StackFrame frame = findGuardCallerFrame();
+        if (null != frame && owner == frame.getDeclaringClass().getNestHost()) {
+            return frame.getClassName() + "." + frame.getMethodName() + ":" + frame.getLineNumber();
+        } else {
+            return owner.getName();
+        }
+    }
+
+    private static StackWalker.@Nullable StackFrame findGuardCallerFrame() {
+        return WALKER.walk(frames -> {
+            StackWalker.@Nullable StackFrame caller = null;
+            boolean inGuards = false;
+            final Iterator<StackWalker.StackFrame> iterator = frames.iterator();
+            while (iterator.hasNext()) {
+                final StackWalker.StackFrame frame = iterator.next();
+                final Class<?> type = frame.getDeclaringClass();
+                if (Guards.class == type || InvariantBatch.class == type) {
+                    inGuards = true;
+                } else if (inGuards) {
+                    return frame;
+                } else if (null == caller && GuardSites.class != type) {
+                    caller = frame;
+                }
+            }
+            return caller;
+        });
+    }
+
+    private static GuardSite register(final GuardSite site) {
+        SITES.add(site);
+        return site;
+    }
+}
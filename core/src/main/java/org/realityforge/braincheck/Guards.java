@@ -1,5 +1,7 @@
 package org.realityforge.braincheck;
 
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
 import org.jspecify.annotations.Nullable;
 
@@ -7,8 +9,25 @@ import org.jspecify.annotations.Nullable;
  * A utility class used to perform assertions and invariant checks.
  */
 public final class Guards {
+    private static final OnGuardListener[] NO_LISTENERS = new OnGuardListener[0];
+    /**
+     * The registered listeners. The array is never modified once published and is replaced when a listener is
+     * added or removed. Only accessed while holding the lock on the Guards class.
+     */
+    private static OnGuardListener[] c_listeners = NO_LISTENERS;
+    /**
+     * The listener that guards are dispatched to. This is null when no listeners are registered, the listener
+     * itself when a single listener is registered, otherwise a listener that dispatches to every registered
+     * listener. This means that dispatching to zero or one listeners costs a single volatile read.
+     */
+    @Nullable
+    private static volatile OnGuardListener c_onGuardListener;
+    /**
+     * The listener that dispatches guards to the listeners registered for the current thread, or null if no
+     * thread-scoped listeners are registered. Only accessed while holding the lock on the Guards class.
+     */
     @Nullable
-    private static OnGuardListener c_onGuardListener;
+    private static OnGuardListener c_threadListener;
 
     /**
      * The type of the guard.
@@ -26,16 +45,200 @@ public final class Guards {
      * that they comply with patterns and to ensure they are documented appropriately.
      */
     interface OnGuardListener {
+        /**
+         * Return true if the listener is interested in guards of the specified type.
+         * This is invoked before the message is rendered so returning false avoids the cost of rendering
+         * the message and capturing the stack trace.
+         */
+        default boolean isInterestedIn(final Type type) {
+            return true;
+        }
+
+        /**
+         * Return true if the listener is interested in the guard with the specified type and message.
+         * This is invoked before the stack trace is captured so returning false avoids that cost.
+         */
+        default boolean isInterestedIn(final Type type, final String message) {
+            return true;
+        }
+
+        /**
+         * Return true if the listener is interested in the coded guard with the specified type, key and code.
+         * This is invoked before the message is rendered and the stack trace is captured.
+         */
+        default boolean isInterestedIn(final Type type, final String key, final int code) {
+            return true;
+        }
+
         void onGuard(Type type, String message, StackTraceElement[] stackTrace);
+
+        /**
+         * Invoked when a coded guard is triggered.
+         * The default implementation prefixes the message with the code and delegates to the uncoded methods.
+         */
+        default void onGuard(
+                final Type type,
+                final String key,
+                final int code,
+                final String message,
+                final StackTraceElement[] stackTrace) {
+            final String codedMessage = BrainCheckUtil.toCodedMessage(key, code, message);
+            if (isInterestedIn(type, codedMessage)) {
+                onGuard(type, codedMessage, stackTrace);
+            }
+        }
     }
 
-    static void setOnGuardListener(@Nullable final OnGuardListener onGuardListener) {
+    /**
+     * Replace all registered listeners with the specified listener, or remove all listeners if null.
+     */
+    static synchronized void setOnGuardListener(@Nullable final OnGuardListener onGuardListener) {
+        assert BrainCheckConfig.isDevelopmentEnvironment();
+        updateListeners(null == onGuardListener ? NO_LISTENERS : new OnGuardListener[] {onGuardListener});
+    }
+
+    static synchronized void addOnGuardListener(final OnGuardListener onGuardListener) {
+        assert BrainCheckConfig.isDevelopmentEnvironment();
+        final OnGuardListener[] listeners = new OnGuardListener[c_listeners.length + 1];
+        System.arraycopy(c_listeners, 0, listeners, 0, c_listeners.length);
+        listeners[c_listeners.length] = onGuardListener;
+        updateListeners(listeners);
+    }
+
+    static synchronized void removeOnGuardListener(final OnGuardListener onGuardListener) {
+        assert BrainCheckConfig.isDevelopmentEnvironment();
+        for (int i = 0; i < c_listeners.length; i++) {
+            if (c_listeners[i] == onGuardListener) {
+                final OnGuardListener[] listeners = new OnGuardListener[c_listeners.length - 1];
+                System.arraycopy(c_listeners, 0, listeners, 0, i);
+                System.arraycopy(c_listeners, i + 1, listeners, i, listeners.length - i);
+                updateListeners(listeners);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Specify the listener that dispatches to thread-scoped listeners, or null if there are none.
+     * The thread listener is retained when the other listeners are replaced or removed.
+     */
+    static synchronized void setThreadOnGuardListener(@Nullable final OnGuardListener threadListener) {
         assert BrainCheckConfig.isDevelopmentEnvironment();
-        c_onGuardListener = onGuardListener;
+        c_threadListener = threadListener;
+        updateListeners(c_listeners);
+    }
+
+    private static void updateListeners(final OnGuardListener[] listeners) {
+        c_listeners = listeners;
+        final OnGuardListener threadListener = c_threadListener;
+        if (null == threadListener) {
+            if (0 == listeners.length) {
+                c_onGuardListener = null;
+            } else if (1 == listeners.length) {
+                c_onGuardListener = listeners[0];
+            } else {
+                c_onGuardListener = new MulticastListener(listeners);
+            }
+        } else if (0 == listeners.length) {
+            c_onGuardListener = threadListener;
+        } else {
+            final OnGuardListener[] all = new OnGuardListener[listeners.length + 1];
+            System.arraycopy(listeners, 0, all, 0, listeners.length);
+            all[listeners.length] = threadListener;
+            c_onGuardListener = new MulticastListener(all);
+        }
+    }
+
+    static boolean isListenerInterested(final Type type) {
+        final OnGuardListener listener = c_onGuardListener;
+        return null != listener && listener.isInterestedIn(type);
+    }
+
+    /**
+     * Notify the listener of the guard if it is interested in the message.
+     * This must be invoked directly from the public guard method so that the stack trace starts at the caller.
+     */
+    static void notifyListener(final Type type, final String message) {
+        final OnGuardListener listener = c_onGuardListener;
+        if (null != listener && listener.isInterestedIn(type, message)) {
+            listener.onGuard(type, message, StackTraceUtil.getGuardStackTrace(3));
+        }
+    }
+
+    /**
+     * Notify the listener of the coded guard if it is interested in the key and code.
+     * The message is only rendered if the listener is interested. This must be invoked directly from the public
+     * guard method so that the stack trace starts at the caller.
+     */
+    private static void notifyListener(
+            final Type type, final String key, final int code, final Supplier<String> message) {
+        final OnGuardListener listener = c_onGuardListener;
+        if (null != listener && listener.isInterestedIn(type, key, code)) {
+            listener.onGuard(
+                    type, key, code, BrainCheckUtil.safeGetString(message), StackTraceUtil.getGuardStackTrace(3));
+        }
     }
 
     private Guards() {}
 
+    /**
+     * Return true if the api invariant identified by the message template is enabled by the configuration or by
+     * an active invariant scope on the current thread.
+     */
+    private static boolean checkApiInvariants(final String messageTemplate) {
+        return GuardLevelUtil.isEnabled(Type.API_INVARIANT, BrainCheckConfig.checkApiInvariants(), messageTemplate)
+                || InvariantScopeUtil.isActive();
+    }
+
+    /**
+     * Return true if the api invariant identified by the message should be checked.
+     * Checks within an active invariant scope are never sampled.
+     */
+    private static boolean shouldCheckApiInvariant(final Object message) {
+        return shouldCheck(
+                GuardLevelUtil.isEnabled(Type.API_INVARIANT, BrainCheckConfig.checkApiInvariants(), message),
+                message);
+    }
+
+    /**
+     * Return true if the invariant identified by the message template is enabled by the configuration or by
+     * an active invariant scope on the current thread.
+     */
+    private static boolean checkInvariants(final String messageTemplate) {
+        return GuardLevelUtil.isEnabled(Type.INVARIANT, BrainCheckConfig.checkInvariants(), messageTemplate)
+                || InvariantScopeUtil.isActive();
+    }
+
+    /**
+     * Return true if the invariant identified by the message should be checked.
+     * Checks within an active invariant scope are never sampled.
+     */
+    private static boolean shouldCheckInvariant(final Object message) {
+        return shouldCheck(
+                GuardLevelUtil.isEnabled(Type.INVARIANT, BrainCheckConfig.checkInvariants(), message), message);
+    }
+
+    /**
+     * Return true if the cost classed invariant identified by the message should be checked.
+     *
+     * @param enabled true if the setting that controls the cost class is enabled.
+     * @param message the message supplier that identifies the call site.
+     */
+    private static boolean shouldCheckCostClassedInvariant(final boolean enabled, final Object message) {
+        return shouldCheck(GuardLevelUtil.isCostClassEnabled(enabled, message), message);
+    }
+
+    /**
+     * Return true if the check identified by the message should be performed.
+     * Checks within an active invariant scope are never sampled.
+     *
+     * @param enabled true if the setting that controls the check is enabled.
+     * @param message the message supplier or message template that identifies the call site.
+     */
+    private static boolean shouldCheck(final boolean enabled, final Object message) {
+        return (enabled && InvariantSampler.shouldCheck(message)) || InvariantScopeUtil.isActive();
+    }
+
     /**
      * Check an api invariant in the code base.
      * The invariant condition should return true if the library user is using the api correctly. This invariant
@@ -45,21 +248,194 @@ public final class Guards {
      * <p>If the condition is false then an {@link IllegalStateException} is thrown.
      * The invariant check will be skipped unless the configuration setting {@link BrainCheckConfig#checkInvariants()}
      * is true. A null message is used rather than supplied message unless {@link BrainCheckConfig#verboseErrorMessages()}
-     * is true.</p>
+     * is true. The condition may only be evaluated for a sample of the checks if
+     * {@link BrainCheckConfig#invariantSampleRate()} is greater than 1. The condition is always evaluated while an
+     * {@link InvariantScope} is active on the current thread.</p>
      *
      * @param condition the condition to check.
      * @param message   the message supplier used if verbose messages enabled.
      * @throws IllegalStateException if condition returns false.
      */
+    public static void apiInvariant(final BooleanSupplier condition, final Supplier<String> message) {
+        if (BrainCheckConfig.isDevelopmentEnvironment() && isListenerInterested(Type.API_INVARIANT)) {
+            notifyListener(Type.API_INVARIANT, BrainCheckUtil.safeGetString(message));
+        }
+        if (shouldCheckApiInvariant(message)) {
+            if (!isConditionTrue(Type.API_INVARIANT, condition, message)) {
+                doFail(Type.API_INVARIANT, message);
+            }
+        }
+    }
+
+    /**
+     * Check an api invariant in the code base that is identified by a structured code.
+     * The key and code are passed to guard listeners as separate values so that listeners can select and
+     * match guards without building or parsing the message. The failure message is the supplied message
+     * prefixed with the code in the form <code>"[Key]-####: [Message]"</code>. The check is otherwise identical to
+     * {@link #apiInvariant(BooleanSupplier, Supplier)}.
+     *
+     * @param key       the key that identifies the library or subsystem that owns the code.
+     * @param code      the code of the api invariant.
+     * @param condition the condition to check.
+     * @param message   the message supplier used if verbose messages enabled.
+     * @throws IllegalStateException if condition returns false.
+     */
+    public static void apiInvariant(
+            final String key, final int code, final BooleanSupplier condition, final Supplier<String> message) {
+        if (BrainCheckConfig.isDevelopmentEnvironment() && isListenerInterested(Type.API_INVARIANT)) {
+            notifyListener(Type.API_INVARIANT, key, code, message);
+        }
+        if (shouldCheckApiInvariant(message)) {
+            if (!isConditionTrue(Type.API_INVARIANT, key, code, condition, message)) {
+                doFail(Type.API_INVARIANT, key, code, message);
+            }
+        }
+    }
+
+    /**
+     * Check an api invariant in the code base using a boxed condition.
+     * This variant exists so that code written against earlier versions of the library continues to compile.
+     * Lambdas that return a primitive boolean will resolve to {@link #apiInvariant(BooleanSupplier, Supplier)}
+     * which should be preferred as it avoids boxing the result of the condition.
+     *
+     * @param condition the condition to check.
+     * @param message   the message supplier used if verbose messages enabled.
+     * @throws IllegalStateException if condition returns false.
+     * @see #apiInvariant(BooleanSupplier, Supplier)
+     */
     public static void apiInvariant(final Supplier<Boolean> condition, final Supplier<String> message) {
-        if (BrainCheckConfig.isDevelopmentEnvironment() && null != c_onGuardListener) {
-            c_onGuardListener.onGuard(
-                    Type.API_INVARIANT, BrainCheckUtil.safeGetString(message), StackTraceUtil.getStackTrace(2));
+        if (BrainCheckConfig.isDevelopmentEnvironment() && isListenerInterested(Type.API_INVARIANT)) {
+            notifyListener(Type.API_INVARIANT, BrainCheckUtil.safeGetString(message));
         }
-        if (BrainCheckConfig.checkApiInvariants()) {
-            boolean conditionResult = isConditionTrue(condition, message);
-            if (!conditionResult) {
-                doFail(message);
+        if (shouldCheckApiInvariant(message)) {
+            if (!isConditionTrue(Type.API_INVARIANT, condition::get, message)) {
+                doFail(Type.API_INVARIANT, message);
+            }
+        }
+    }
+
+    /**
+     * Check an api invariant in the code base using a message template rather than a message supplier.
+     * The caller supplies the evaluated condition and the raw message arguments so that a passing check does
+     * not need to allocate any lambdas. Each <code>%s</code> placeholder in the template is replaced by the
+     * string value of the corresponding argument and the message is only formatted when it is required.
+     * The check is otherwise identical to {@link #apiInvariant(BooleanSupplier, Supplier)}.
+     *
+     * @param condition       the condition to check.
+     * @param messageTemplate the message template used if verbose messages enabled.
+     * @param arg1            the first argument substituted into the message template.
+     * @throws IllegalStateException if condition is false.
+     */
+    public static void apiInvariant(
+            final boolean condition, final String messageTemplate, @Nullable final Object arg1) {
+        if (BrainCheckConfig.isDevelopmentEnvironment() && isListenerInterested(Type.API_INVARIANT)) {
+            notifyListener(Type.API_INVARIANT, BrainCheckUtil.safeFormat(messageTemplate, arg1));
+        }
+        if (checkApiInvariants(messageTemplate)
+                && !isConditionTrue(Type.API_INVARIANT, condition, messageTemplate)) {
+            doFail(Type.API_INVARIANT, messageTemplate, arg1);
+        }
+    }
+
+    /**
+     * Check an api invariant in the code base using a message template with 2 arguments.
+     *
+     * @param condition       the condition to check.
+     * @param messageTemplate the message template used if verbose messages enabled.
+     * @param arg1            the first argument substituted into the message template.
+     * @param arg2            the second argument substituted into the message template.
+     * @throws IllegalStateException if condition is false.
+     * @see #apiInvariant(boolean, String, Object)
+     */
+    public static void apiInvariant(
+            final boolean condition,
+            final String messageTemplate,
+            @Nullable final Object arg1,
+            @Nullable final Object arg2) {
+        if (BrainCheckConfig.isDevelopmentEnvironment() && isListenerInterested(Type.API_INVARIANT)) {
+            notifyListener(Type.API_INVARIANT, BrainCheckUtil.safeFormat(messageTemplate, arg1, arg2));
+        }
+        if (checkApiInvariants(messageTemplate)
+                && !isConditionTrue(Type.API_INVARIANT, condition, messageTemplate)) {
+            doFail(Type.API_INVARIANT, messageTemplate, arg1, arg2);
+        }
+    }
+
+    /**
+     * Check an api invariant in the code base using a message template with 3 arguments.
+     *
+     * @param condition       the condition to check.
+     * @param messageTemplate the message template used if verbose messages enabled.
+     * @param arg1            the first argument substituted into the message template.
+     * @param arg2            the second argument substituted into the message template.
+     * @param arg3            the third argument substituted into the message template.
+     * @throws IllegalStateException if condition is false.
+     * @see #apiInvariant(boolean, String, Object)
+     */
+    public static void apiInvariant(
+            final boolean condition,
+            final String messageTemplate,
+            @Nullable final Object arg1,
+            @Nullable final Object arg2,
+            @Nullable final Object arg3) {
+        if (BrainCheckConfig.isDevelopmentEnvironment() && isListenerInterested(Type.API_INVARIANT)) {
+            notifyListener(Type.API_INVARIANT, BrainCheckUtil.safeFormat(messageTemplate, arg1, arg2, arg3));
+        }
+        if (checkApiInvariants(messageTemplate)
+                && !isConditionTrue(Type.API_INVARIANT, condition, messageTemplate)) {
+            doFail(Type.API_INVARIANT, messageTemplate, arg1, arg2, arg3);
+        }
+    }
+
+    /**
+     * Check an api invariant in the code base using a message template with 4 arguments.
+     *
+     * @param condition       the condition to check.
+     * @param messageTemplate the message template used if verbose messages enabled.
+     * @param arg1            the first argument substituted into the message template.
+     * @param arg2            the second argument substituted into the message template.
+     * @param arg3            the third argument substituted into the message template.
+     * @param arg4            the fourth argument substituted into the message template.
+     * @throws IllegalStateException if condition is false.
+     * @see #apiInvariant(boolean, String, Object)
+     */
+    public static void apiInvariant(
+            final boolean condition,
+            final String messageTemplate,
+            @Nullable final Object arg1,
+            @Nullable final Object arg2,
+            @Nullable final Object arg3,
+            @Nullable final Object arg4) {
+        if (BrainCheckConfig.isDevelopmentEnvironment() && isListenerInterested(Type.API_INVARIANT)) {
+            notifyListener(Type.API_INVARIANT, BrainCheckUtil.safeFormat(messageTemplate, arg1, arg2, arg3, arg4));
+        }
+        if (checkApiInvariants(messageTemplate)
+                && !isConditionTrue(Type.API_INVARIANT, condition, messageTemplate)) {
+            doFail(Type.API_INVARIANT, messageTemplate, arg1, arg2, arg3, arg4);
+        }
+    }
+
+    /**
+     * Check an api invariant in the code base by applying a predicate to a value.
+     * The predicate should not capture any state so that a passing check does not need to allocate. The value
+     * is passed to the predicate and is also substituted into the first <code>%s</code> placeholder of the message
+     * template. The predicate is only invoked when the check is enabled. The check is otherwise identical to
+     * {@link #apiInvariant(BooleanSupplier, Supplier)}.
+     *
+     * @param condition       the predicate to apply to the value.
+     * @param value           the value to check.
+     * @param messageTemplate the message template used if verbose messages enabled.
+     * @param <T>             the type of the value.
+     * @throws IllegalStateException if the predicate returns false.
+     */
+    public static <T> void apiInvariant(
+            final Predicate<? super T> condition, final T value, final String messageTemplate) {
+        if (BrainCheckConfig.isDevelopmentEnvironment() && isListenerInterested(Type.API_INVARIANT)) {
+            notifyListener(Type.API_INVARIANT, BrainCheckUtil.safeFormat(messageTemplate, value));
+        }
+        if (shouldCheckApiInvariant(messageTemplate)) {
+            if (!isConditionTrue(Type.API_INVARIANT, condition, value, messageTemplate)) {
+                doFail(Type.API_INVARIANT, messageTemplate, value);
             }
         }
     }
@@ -73,39 +449,406 @@ public final class Guards {
      * <p>If the condition is false then an {@link IllegalStateException} is thrown.
      * The invariant check will be skipped unless the configuration setting {@link BrainCheckConfig#checkInvariants()}
      * is true. A null message is used rather than supplied message unless {@link BrainCheckConfig#verboseErrorMessages()}
-     * is true.</p>
+     * is true. The condition may only be evaluated for a sample of the checks if
+     * {@link BrainCheckConfig#invariantSampleRate()} is greater than 1. The condition is always evaluated while an
+     * {@link InvariantScope} is active on the current thread.</p>
      *
      * @param condition the condition to check.
      * @param message   the message supplier used if verbose messages enabled.
      * @throws IllegalStateException if condition returns false.
      */
+    public static void invariant(final BooleanSupplier condition, final Supplier<String> message) {
+        if (BrainCheckConfig.isDevelopmentEnvironment() && isListenerInterested(Type.INVARIANT)) {
+            notifyListener(Type.INVARIANT, BrainCheckUtil.safeGetString(message));
+        }
+        if (shouldCheckInvariant(message)) {
+            if (!isConditionTrue(Type.INVARIANT, condition, message)) {
+                doFail(Type.INVARIANT, message);
+            }
+        }
+    }
+
+    /**
+     * Check an invariant in code base that is identified by a structured code.
+     * The failure message is the supplied message prefixed with the code in the form
+     * <code>"[Key]-####: [Message]"</code>. The check is otherwise identical to
+     * {@link #invariant(BooleanSupplier, Supplier)}.
+     *
+     * @param key       the key that identifies the library or subsystem that owns the code.
+     * @param code      the code of the invariant.
+     * @param condition the condition to check.
+     * @param message   the message supplier used if verbose messages enabled.
+     * @throws IllegalStateException if condition returns false.
+     * @see #apiInvariant(String, int, BooleanSupplier, Supplier)
+     */
+    public static void invariant(
+            final String key, final int code, final BooleanSupplier condition, final Supplier<String> message) {
+        if (BrainCheckConfig.isDevelopmentEnvironment() && isListenerInterested(Type.INVARIANT)) {
+            notifyListener(Type.INVARIANT, key, code, message);
+        }
+        if (shouldCheckInvariant(message)) {
+            if (!isConditionTrue(Type.INVARIANT, key, code, condition, message)) {
+                doFail(Type.INVARIANT, key, code, message);
+            }
+        }
+    }
+
+    /**
+     * Check an invariant in code base using a boxed condition.
+     * This variant exists so that code written against earlier versions of the library continues to compile.
+     * Lambdas that return a primitive boolean will resolve to {@link #invariant(BooleanSupplier, Supplier)}
+     * which should be preferred as it avoids boxing the result of the condition.
+     *
+     * @param condition the condition to check.
+     * @param message   the message supplier used if verbose messages enabled.
+     * @throws IllegalStateException if condition returns false.
+     * @see #invariant(BooleanSupplier, Supplier)
+     */
     public static void invariant(final Supplier<Boolean> condition, final Supplier<String> message) {
-        if (BrainCheckConfig.isDevelopmentEnvironment() && null != c_onGuardListener) {
-            c_onGuardListener.onGuard(
-                    Type.INVARIANT, BrainCheckUtil.safeGetString(message), StackTraceUtil.getStackTrace(2));
+        if (BrainCheckConfig.isDevelopmentEnvironment() && isListenerInterested(Type.INVARIANT)) {
+            notifyListener(Type.INVARIANT, BrainCheckUtil.safeGetString(message));
         }
-        if (BrainCheckConfig.checkInvariants()) {
-            if (!isConditionTrue(condition, message)) {
-                doFail(message);
+        if (shouldCheckInvariant(message)) {
+            if (!isConditionTrue(Type.INVARIANT, condition::get, message)) {
+                doFail(Type.INVARIANT, message);
             }
         }
     }
 
+    /**
+     * Check an invariant in code base using a message template rather than a message supplier.
+     * The caller supplies the evaluated condition and the raw message arguments so that a passing check does
+     * not need to allocate any lambdas. Each <code>%s</code> placeholder in the template is replaced by the
+     * string value of the corresponding argument and the message is only formatted when it is required.
+     * The check is otherwise identical to {@link #invariant(BooleanSupplier, Supplier)}.
+     *
+     * @param condition       the condition to check.
+     * @param messageTemplate the message template used if verbose messages enabled.
+     * @param arg1            the first argument substituted into the message template.
+     * @throws IllegalStateException if condition is false.
+     */
+    public static void invariant(final boolean condition, final String messageTemplate, @Nullable final Object arg1) {
+        if (BrainCheckConfig.isDevelopmentEnvironment() && isListenerInterested(Type.INVARIANT)) {
+            notifyListener(Type.INVARIANT, BrainCheckUtil.safeFormat(messageTemplate, arg1));
+        }
+        if (checkInvariants(messageTemplate) && !isConditionTrue(Type.INVARIANT, condition, messageTemplate)) {
+            doFail(Type.INVARIANT, messageTemplate, arg1);
+        }
+    }
+
+    /**
+     * Check an invariant in code base using a message template with 2 arguments.
+     *
+     * @param condition       the condition to check.
+     * @param messageTemplate the message template used if verbose messages enabled.
+     * @param arg1            the first argument substituted into the message template.
+     * @param arg2            the second argument substituted into the message template.
+     * @throws IllegalStateException if condition is false.
+     * @see #invariant(boolean, String, Object)
+     */
+    public static void invariant(
+            final boolean condition,
+            final String messageTemplate,
+            @Nullable final Object arg1,
+            @Nullable final Object arg2) {
+        if (BrainCheckConfig.isDevelopmentEnvironment() && isListenerInterested(Type.INVARIANT)) {
+            notifyListener(Type.INVARIANT, BrainCheckUtil.safeFormat(messageTemplate, arg1, arg2));
+        }
+        if (checkInvariants(messageTemplate) && !isConditionTrue(Type.INVARIANT, condition, messageTemplate)) {
+            doFail(Type.INVARIANT, messageTemplate, arg1, arg2);
+        }
+    }
+
+    /**
+     * Check an invariant in code base using a message template with 3 arguments.
+     *
+     * @param condition       the condition to check.
+     * @param messageTemplate the message template used if verbose messages enabled.
+     * @param arg1            the first argument substituted into the message template.
+     * @param arg2            the second argument substituted into the message template.
+     * @param arg3            the third argument substituted into the message template.
+     * @throws IllegalStateException if condition is false.
+     * @see #invariant(boolean, String, Object)
+     */
+    public static void invariant(
+            final boolean condition,
+            final String messageTemplate,
+            @Nullable final Object arg1,
+            @Nullable final Object arg2,
+            @Nullable final Object arg3) {
+        if (BrainCheckConfig.isDevelopmentEnvironment() && isListenerInterested(Type.INVARIANT)) {
+            notifyListener(Type.INVARIANT, BrainCheckUtil.safeFormat(messageTemplate, arg1, arg2, arg3));
+        }
+        if (checkInvariants(messageTemplate) && !isConditionTrue(Type.INVARIANT, condition, messageTemplate)) {
+            doFail(Type.INVARIANT, messageTemplate, arg1, arg2, arg3);
+        }
+    }
+
+    /**
+     * Check an invariant in code base using a message template with 4 arguments.
+     *
+     * @param condition       the condition to check.
+     * @param messageTemplate the message template used if verbose messages enabled.
+     * @param arg1            the first argument substituted into the message template.
+     * @param arg2            the second argument substituted into the message template.
+     * @param arg3            the third argument substituted into the message template.
+     * @param arg4            the fourth argument substituted into the message template.
+     * @throws IllegalStateException if condition is false.
+     * @see #invariant(boolean, String, Object)
+     */
+    public static void invariant(
+            final boolean condition,
+            final String messageTemplate,
+            @Nullable final Object arg1,
+            @Nullable final Object arg2,
+            @Nullable final Object arg3,
+            @Nullable final Object arg4) {
+        if (BrainCheckConfig.isDevelopmentEnvironment() && isListenerInterested(Type.INVARIANT)) {
+            notifyListener(Type.INVARIANT, BrainCheckUtil.safeFormat(messageTemplate, arg1, arg2, arg3, arg4));
+        }
+        if (checkInvariants(messageTemplate) && !isConditionTrue(Type.INVARIANT, condition, messageTemplate)) {
+            doFail(Type.INVARIANT, messageTemplate, arg1, arg2, arg3, arg4);
+        }
+    }
+
+    /**
+     * Check an invariant in code base by applying a predicate to a value.
+     * The predicate should not capture any state so that a passing check does not need to allocate. The value
+     * is passed to the predicate and is also substituted into the first <code>%s</code> placeholder of the message
+     * template. The predicate is only invoked when the check is enabled. The check is otherwise identical to
+     * {@link #invariant(BooleanSupplier, Supplier)}.
+     *
+     * @param condition       the predicate to apply to the value.
+     * @param value           the value to check.
+     * @param messageTemplate the message template used if verbose messages enabled.
+     * @param <T>             the type of the value.
+     * @throws IllegalStateException if the predicate returns false.
+     */
+    public static <T> void invariant(
+            final Predicate<? super T> condition, final T value, final String messageTemplate) {
+        if (BrainCheckConfig.isDevelopmentEnvironment() && isListenerInterested(Type.INVARIANT)) {
+            notifyListener(Type.INVARIANT, BrainCheckUtil.safeFormat(messageTemplate, value));
+        }
+        if (shouldCheckInvariant(messageTemplate)) {
+            if (!isConditionTrue(Type.INVARIANT, condition, value, messageTemplate)) {
+                doFail(Type.INVARIANT, messageTemplate, value);
+            }
+        }
+    }
+
+    /**
+     * Check a cheap invariant in the code base.
+     * Cheap invariants should have a small, constant cost so that they can remain enabled in production.
+     * The check is skipped unless the configuration setting {@link BrainCheckConfig#checkCheapInvariants()} is true
+     * or an {@link InvariantScope} is active on the current thread and is otherwise identical to
+     * {@link #invariant(BooleanSupplier, Supplier)}.
+     *
+     * @param condition the condition to check.
+     * @param message   the message supplier used if verbose messages enabled.
+     * @throws IllegalStateException if condition returns false.
+     */
+    public static void cheapInvariant(final BooleanSupplier condition, final Supplier<String> message) {
+        if (BrainCheckConfig.isDevelopmentEnvironment() && isListenerInterested(Type.INVARIANT)) {
+            notifyListener(Type.INVARIANT, BrainCheckUtil.safeGetString(message));
+        }
+        if (shouldCheckCostClassedInvariant(BrainCheckConfig.checkCheapInvariants(), message)) {
+            if (!isConditionTrue(Type.INVARIANT, condition, message)) {
+                doFail(Type.INVARIANT, message);
+            }
+        }
+    }
+
+    /**
+     * Check an expensive invariant in the code base.
+     * Expensive invariants may have a cost that is proportional to the size of the structure being checked.
+     * The check is skipped unless the configuration setting {@link BrainCheckConfig#checkExpensiveInvariants()} is true
+     * or an {@link InvariantScope} is active on the current thread and is otherwise identical to
+     * {@link #invariant(BooleanSupplier, Supplier)}.
+     *
+     * @param condition the condition to check.
+     * @param message   the message supplier used if verbose messages enabled.
+     * @throws IllegalStateException if condition returns false.
+     */
+    public static void expensiveInvariant(final BooleanSupplier condition, final Supplier<String> message) {
+        if (BrainCheckConfig.isDevelopmentEnvironment() && isListenerInterested(Type.INVARIANT)) {
+            notifyListener(Type.INVARIANT, BrainCheckUtil.safeGetString(message));
+        }
+        if (shouldCheckCostClassedInvariant(BrainCheckConfig.checkExpensiveInvariants(), message)) {
+            if (!isConditionTrue(Type.INVARIANT, condition, message)) {
+                doFail(Type.INVARIANT, message);
+            }
+        }
+    }
+
+    /**
+     * Check a paranoid invariant in the code base.
+     * Paranoid invariants are typically too expensive to enable outside of targeted debugging sessions.
+     * The check is skipped unless the configuration setting {@link BrainCheckConfig#checkParanoidInvariants()} is true
+     * or an {@link InvariantScope} is active on the current thread and is otherwise identical to
+     * {@link #invariant(BooleanSupplier, Supplier)}.
+     *
+     * @param condition the condition to check.
+     * @param message   the message supplier used if verbose messages enabled.
+     * @throws IllegalStateException if condition returns false.
+     */
+    public static void paranoidInvariant(final BooleanSupplier condition, final Supplier<String> message) {
+        if (BrainCheckConfig.isDevelopmentEnvironment() && isListenerInterested(Type.INVARIANT)) {
+            notifyListener(Type.INVARIANT, BrainCheckUtil.safeGetString(message));
+        }
+        if (shouldCheckCostClassedInvariant(BrainCheckConfig.checkParanoidInvariants(), message)) {
+            if (!isConditionTrue(Type.INVARIANT, condition, message)) {
+                doFail(Type.INVARIANT, message);
+            }
+        }
+    }
+
+    /**
+     * Return a batch of invariants that reads the {@link BrainCheckConfig#checkInvariants()} setting once for all
+     * the checks in the batch. The checks are performed even if the setting is false while an
+     * {@link InvariantScope} is active on the current thread.
+     *
+     * @return the batch.
+     * @see InvariantBatch
+     */
+    public static InvariantBatch invariants() {
+        return InvariantBatch.create(Type.INVARIANT, BrainCheckConfig.checkInvariants());
+    }
+
+    /**
+     * Return a batch of api invariants that reads the {@link BrainCheckConfig#checkApiInvariants()} setting once
+     * for all the checks in the batch. The checks are performed even if the setting is false while an
+     * {@link InvariantScope} is active on the current thread.
+     *
+     * @return the batch.
+     * @see InvariantBatch
+     */
+    public static InvariantBatch apiInvariants() {
+        return InvariantBatch.create(Type.API_INVARIANT, BrainCheckConfig.checkApiInvariants());
+    }
+
     /**
      * Return the result of specified condition.
-     * If there is an error resolving condition then fail or return false depending on config settings.
+     * If there is an error resolving condition then the failure is reported and true is returned so that
+     * the caller does not report the failure again.
+     *
+     * @return the result of specified condition.
+     */
+    static boolean isConditionTrue(
+            final Type type, final BooleanSupplier condition, final Supplier<String> message) {
+        return isConditionTrue(type, null, 0, condition, message);
+    }
+
+    /**
+     * Return the result of specified condition for a guard that may be coded.
+     * If there is an error resolving condition then the failure is reported and true is returned so that
+     * the caller does not report the failure again.
      *
+     * @param key  the key that identifies the library or subsystem that owns the code or null if the guard is
+     *             not coded.
+     * @param code the code of the guard. Ignored if the key is null.
      * @return the result of specified condition.
      */
-    private static boolean isConditionTrue(final Supplier<Boolean> condition, final Supplier<String> message) {
+    private static boolean isConditionTrue(
+            final Type type,
+            @Nullable final String key,
+            final int code,
+            final BooleanSupplier condition,
+            final Supplier<String> message) {
+        MetricsUtil.onEvaluation(type, message, key, code);
+        final boolean result;
+        final long start = ProfilerUtil.start();
+        final Object event = FlightRecorderUtil.beginEvaluation();
+        try {
+            result = condition.getAsBoolean();
+        } catch (final Throwable t) {
+            ProfilerUtil.onEvaluated(type, message, start);
+            FlightRecorderUtil.endEvaluation(event, type, message, key, code);
+            InvariantSampler.onFailure(message);
+            MetricsUtil.onConditionException(type, message, key, code);
+            doFail(
+                    type,
+                    message,
+                    () -> "Error checking condition.\n" + "Message: "
+                            + BrainCheckUtil.safeGetString(message) + "\n" + "Throwable:\n"
+                            + BrainCheckUtil.throwableToString(t),
+                    key,
+                    code);
+            // The failure has been reported if it was not thrown so the caller must not report it again
+            return true;
+        }
+        ProfilerUtil.onEvaluated(type, message, start);
+        FlightRecorderUtil.endEvaluation(event, type, message, key, code);
+        if (!result) {
+            onConditionFailed(type, message, key, code);
+        }
+        return result;
+    }
+
+    /**
+     * Return the result of applying the predicate to the value.
+     * If there is an error resolving condition then the failure is reported and true is returned so that
+     * the caller does not report the failure again.
+     *
+     * @return the result of applying the predicate to the value.
+     */
+    private static <T> boolean isConditionTrue(
+            final Type type, final Predicate<? super T> condition, final T value, final String messageTemplate) {
+        MetricsUtil.onEvaluation(type, messageTemplate, null, 0);
+        final boolean result;
+        final long start = ProfilerUtil.start();
+        final Object event = FlightRecorderUtil.beginEvaluation();
         try {
-            return condition.get();
+            result = condition.test(value);
         } catch (final Throwable t) {
-            doFail(() -> "Error checking condition.\n" + "Message: "
-                    + BrainCheckUtil.safeGetString(message) + "\n" + "Throwable:\n"
-                    + BrainCheckUtil.throwableToString(t));
+            ProfilerUtil.onEvaluated(type, messageTemplate, start);
+            FlightRecorderUtil.endEvaluation(event, type, messageTemplate, null, 0);
+            InvariantSampler.onFailure(messageTemplate);
+            MetricsUtil.onConditionException(type, messageTemplate, null, 0);
+            doFail(
+                    type,
+                    messageTemplate,
+                    () -> "Error checking condition.\n" + "Message: "
+                            + BrainCheckUtil.safeFormat(messageTemplate, value) + "\n" + "Throwable:\n"
+                            + BrainCheckUtil.throwableToString(t),
+                    null,
+                    0);
+            // The failure has been reported if it was not thrown so the caller must not report it again
+            return true;
+        }
+        ProfilerUtil.onEvaluated(type, messageTemplate, start);
+        FlightRecorderUtil.endEvaluation(event, type, messageTemplate, null, 0);
+        if (!result) {
+            onConditionFailed(type, messageTemplate, null, 0);
+        }
+        return result;
+    }
+
+    /**
+     * Return the supplied condition after recording the evaluation of the condition.
+     *
+     * @return the supplied condition.
+     */
+    private static boolean isConditionTrue(final Type type, final boolean condition, final String messageTemplate) {
+        MetricsUtil.onEvaluation(type, messageTemplate, null, 0);
+        if (!condition) {
+            onConditionFailed(type, messageTemplate, null, 0);
         }
-        return false;
+        return condition;
+    }
+
+    /**
+     * Invoked when a condition is false.
+     *
+     * @param type    the type of the guard.
+     * @param message the message supplier or message template that identifies the call site.
+     * @param key     the key that identifies the library or subsystem that owns the code or null if the guard is
+     *                not coded.
+     * @param code    the code of the guard. Ignored if the key is null.
+     */
+    private static void onConditionFailed(
+            final Type type, final Object message, @Nullable final String key, final int code) {
+        InvariantSampler.onFailure(message);
+        MetricsUtil.onFailure(type, message, key, code);
     }
 
     /**
@@ -116,14 +859,109 @@ public final class Guards {
      * @throws IllegalStateException when called.
      */
     public static void fail(final Supplier<String> message) {
-        if (BrainCheckConfig.isDevelopmentEnvironment() && null != c_onGuardListener) {
-            c_onGuardListener.onGuard(
-                    Type.FAIL, BrainCheckUtil.safeGetString(message), StackTraceUtil.getStackTrace(2));
+        if (BrainCheckConfig.isDevelopmentEnvironment() && isListenerInterested(Type.FAIL)) {
+            notifyListener(Type.FAIL, BrainCheckUtil.safeGetString(message));
+        }
+        MetricsUtil.onFailure(Type.FAIL, message, null, 0);
+        doFail(Type.FAIL, message);
+    }
+
+    /**
+     * Throw an IllegalStateException with supplied detail message prefixed by the code.
+     * The exception will ignore the supplied message unless {@link BrainCheckConfig#verboseErrorMessages()} is true.
+     *
+     * @param key     the key that identifies the library or subsystem that owns the code.
+     * @param code    the code of the failure.
+     * @param message the message supplier used if verbose messages enabled.
+     * @throws IllegalStateException when called.
+     * @see #apiInvariant(String, int, BooleanSupplier, Supplier)
+     */
+    public static void fail(final String key, final int code, final Supplier<String> message) {
+        if (BrainCheckConfig.isDevelopmentEnvironment() && isListenerInterested(Type.FAIL)) {
+            notifyListener(Type.FAIL, key, code, message);
         }
-        doFail(message);
+        MetricsUtil.onFailure(Type.FAIL, message, key, code);
+        doFail(Type.FAIL, key, code, message);
     }
 
-    private static void doFail(final Supplier<String> message) {
+    private static void doFail(final Type type, final Supplier<String> message) {
+        doFail(type, message, message, null, 0);
+    }
+
+    /**
+     * Report the failure of a batch of invariants.
+     * The failures have already been recorded by the metrics as each condition was evaluated.
+     *
+     * @param type     the type of the guards in the batch.
+     * @param callSite the message supplier of the first check that failed.
+     * @param message  the message supplier used if verbose messages enabled.
+     */
+    static void reportBatchFailure(final Type type, final Supplier<String> callSite, final Supplier<String> message) {
+        doFail(type, callSite, message, null, 0);
+    }
+
+    /**
+     * Report the failure of a coded guard.
+     * If verbose error messages are disabled then the failure carries the code in place of the message so that the
+     * failure can still be decoded using the message catalog produced by the <code>GuardMessageCollector</code>.
+     */
+    private static void doFail(final Type type, final String key, final int code, final Supplier<String> message) {
+        doFail(
+                type,
+                message,
+                () -> BrainCheckUtil.toCodedMessage(key, code, BrainCheckUtil.safeGetString(message)),
+                key,
+                code);
+    }
+
+    /**
+     * Report a failure by throwing an IllegalStateException with supplied detail message or, if the failure mode is
+     * not {@link BrainCheckConfig.FailureMode#THROW} and the guard is not a fail guard, by recording or logging it.
+     *
+     * @param type     the type of the guard.
+     * @param callSite the message supplier or message template that identifies the call site.
+     * @param message  the message supplier used if verbose messages enabled.
+     * @param key      the key that identifies the library or subsystem that owns the code or null if the guard is
+     *                 not coded. The code is used in place of the message if verbose messages are disabled.
+     * @param code     the code of the guard. Ignored if the key is null.
+     */
+    private static void doFail(
+            final Type type,
+            final Object callSite,
+            final Supplier<String> message,
+            @Nullable final String key,
+            final int code) {
+        triggerDebuggerIfEnabled();
+        final GuardMessage guardMessage = GuardMessage.of(message);
+        final boolean suppressed = FailureGovernor.shouldSuppressFailure(type, callSite, key, code);
+        FlightRecorderUtil.onFailure(type, callSite, key, code, guardMessage, suppressed);
+        if (suppressed) {
+            if (FailureUtil.shouldThrow(type)) {
+                throw FailureUtil.newSuppressedFailure();
+            }
+        } else if (!FailureUtil.shouldThrow(type)) {
+            FailureUtil.report(
+                    type,
+                    callSite,
+                    BrainCheckConfig.verboseErrorMessages()
+                            ? guardMessage.get()
+                            : null == key ? null : BrainCheckUtil.toCode(key, code));
+        } else if (BrainCheckConfig.verboseErrorMessages()) {
+            throw FailureUtil.newVerboseFailure(guardMessage);
+        } else {
+            throw FailureUtil.newFailure(null == key ? null : BrainCheckUtil.toCode(key, code));
+        }
+    }
+
+    /**
+     * Report a failure of a guard that uses a message template.
+     * The template and arguments are retained and the message is only rendered when it is required.
+     */
+    private static void doFail(final Type type, final String messageTemplate, @Nullable final Object... arguments) {
+        doFail(type, messageTemplate, new GuardMessage(messageTemplate, arguments), null, 0);
+    }
+
+    private static void triggerDebuggerIfEnabled() {
         /*
          * This flag will only be present and set when GWT is compiling the source code and the relevant
          * compile time property is defined. Thus this will be false in normal jre runtime environment.
@@ -131,10 +969,70 @@ public final class Guards {
         if ("ENABLED".equals(System.getProperty("jre.debugMode"))) {
             DebuggerUtil.debugger();
         }
-        if (BrainCheckConfig.verboseErrorMessages()) {
-            throw new IllegalStateException(BrainCheckUtil.safeGetString(message));
-        } else {
-            throw new IllegalStateException();
+    }
+
+    /**
+     * Dispatches guards to multiple listeners.
+     * The message is rendered and the stack trace is captured once and shared by every interested listener.
+     */
+    private static final class MulticastListener implements OnGuardListener {
+        private final OnGuardListener[] _listeners;
+
+        MulticastListener(final OnGuardListener[] listeners) {
+            _listeners = listeners;
+        }
+
+        @Override
+        public boolean isInterestedIn(final Type type) {
+            for (final OnGuardListener listener : _listeners) {
+                if (listener.isInterestedIn(type)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public boolean isInterestedIn(final Type type, final String message) {
+            for (final OnGuardListener listener : _listeners) {
+                if (listener.isInterestedIn(type) && listener.isInterestedIn(type, message)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public boolean isInterestedIn(final Type type, final String key, final int code) {
+            for (final OnGuardListener listener : _listeners) {
+                if (listener.isInterestedIn(type) && listener.isInterestedIn(type, key, code)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public void onGuard(final Type type, final String message, final StackTraceElement[] stackTrace) {
+            for (final OnGuardListener listener : _listeners) {
+                if (listener.isInterestedIn(type) && listener.isInterestedIn(type, message)) {
+                    listener.onGuard(type, message, stackTrace);
+                }
+            }
+        }
+
+        @Override
+        public void onGuard(
+                final Type type,
+                final String key,
+                final int code,
+                final String message,
+                final StackTraceElement[] stackTrace) {
+            for (final OnGuardListener listener : _listeners) {
+                if (listener.isInterestedIn(type) && listener.isInterestedIn(type, key, code)) {
+                    listener.onGuard(type, key, code, message, stackTrace);
+                }
+            }
         }
     }
 }
@@ -0,0 +1,147 @@
+package org.realityforge.braincheck;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * A batch of invariants that are checked together, typically when validating an aggregate.
+ * The configuration, including whether a guard listener is interested in the guards, is read once when the batch
+ * is created via {@link Guards#invariants()} or {@link Guards#apiInvariants()}. The
+ * {@link BrainCheckConfig#guardLevels()} are applied once per batch, using the level cached on the call site of
+ * the first check. If the checks are disabled and no listener is interested, a shared batch is returned that does
+ * nothing. Failures are reported when {@link #verify()} is
+ * invoked, which must be the last method invoked on the batch. A typical usage is:
+ *
+ * <pre>
+ * Guards.invariants()
+ *     .check(() -&gt; null != _name, () -&gt; "Name must be specified")
+ *     .check(() -&gt; _count &gt;= 0, () -&gt; "Count must not be negative")
+ *     .verify();
+ * </pre>
+ *
+ * <p>By default the first failure is reported and the conditions of subsequent checks are not evaluated. If
+ * {@link #reportAll()} is invoked then every condition is evaluated and the failures are reported together. The
+ * message of the combined failure lists the message of each failed check and the first failed check identifies the
+ * call site. The batch is evaluated as a unit so {@link BrainCheckConfig#invariantSampleRate()} and
+ * {@link BrainCheckConfig#adaptiveInvariants()} do not apply to the individual checks. A batch must only be used
+ * by a single thread.</p>
+ */
+public final class InvariantBatch {
+    private static final InvariantBatch DISABLED_INVARIANTS =
+            new InvariantBatch(Guards.Type.INVARIANT, false, false, false);
+    private static final InvariantBatch DISABLED_API_INVARIANTS =
+            new InvariantBatch(Guards.Type.API_INVARIANT, false, false, false);
+    private final Guards.Type _type;
+    private boolean _enabled;
+    /**
+     * True if the guard level has yet to be applied to the batch. The level is resolved from the message supplier
+     * of the first check so that creating the batch does not need to identify the calling class.
+     */
+    private boolean _resolveLevel;
+    /**
+     * True if the guard listener is notified of each check.
+     */
+    private final boolean _notifyListener;
+    private boolean _reportAll;
+    /**
+     * The messages of the checks that failed or null if no check has failed.
+     */
+    @Nullable
+    private List<Supplier<String>> _failures;
+
+    private InvariantBatch(
+            final Guards.Type type, final boolean enabled, final boolean resolveLevel, final boolean notifyListener) {
+        _type = type;
+        _enabled = enabled;
+        _resolveLevel = resolveLevel;
+        _notifyListener = notifyListener;
+    }
+
+    /**
+     * Return a batch for guards of the specified type.
+     *
+     * @param type    the type of the guards.
+     * @param enabled true if the guard type is enabled by the global configuration.
+     * @return the batch.
+     */
+    static InvariantBatch create(final Guards.Type type, final boolean enabled) {
+        final boolean scoped = InvariantScopeUtil.isActive();
+        final boolean resolveLevel = !scoped && GuardLevelUtil.hasGuardLevels();
+        final boolean notifyListener =
+                BrainCheckConfig.isDevelopmentEnvironment() && Guards.isListenerInterested(type);
+        if (enabled || scoped || resolveLevel || notifyListener) {
+            return new InvariantBatch(type, enabled || scoped, resolveLevel, notifyListener);
+        } else {
+            return Guards.Type.API_INVARIANT == type ? DISABLED_API_INVARIANTS : DISABLED_INVARIANTS;
+        }
+    }
+
+    /**
+     * Evaluate every condition in the batch and report all the failures rather than only the first failure.
+     * This should be invoked before any checks are added to the batch.
+     *
+     * @return this batch.
+     */
+    public InvariantBatch reportAll() {
+        if (_enabled || _resolveLevel) {
+            _reportAll = true;
+        }
+        return this;
+    }
+
+    /**
+     * Add a check to the batch.
+     * The condition is evaluated immediately unless the checks are disabled or a previous check has failed and
+     * {@link #reportAll()} has not been invoked.
+     *
+     * @param condition the condition to check.
+     * @param message   the message supplier used if verbose messages enabled.
+     * @return this batch.
+     */
+    public InvariantBatch check(final BooleanSupplier condition, final Supplier<String> message) {
+        if (_resolveLevel) {
+            _resolveLevel = false;
+            _enabled = GuardLevelUtil.isEnabled(_type, _enabled, message);
+        }
+        if (_notifyListener) {
+            Guards.notifyListener(_type, BrainCheckUtil.safeGetString(message));
+        }
+        if (_enabled && (_reportAll || null == _failures) && !Guards.isConditionTrue(_type, condition, message)) {
+            if (null == _failures) {
+                _failures = new ArrayList<>();
+            }
+            _failures.add(message);
+        }
+        return this;
+    }
+
+    /**
+     * Report the failures of the checks in the batch, if any.
+     *
+     * @throws IllegalStateException if any check in the batch failed.
+     */
+    public void verify() {
+        final List<Supplier<String>> failures = _failures;
+        if (null != failures) {
+            _failures = null;
+            final Supplier<String> first = failures.get(0);
+            if (1 == failures.size()) {
+                Guards.reportBatchFailure(_type, first, first);
+            } else {
+                Guards.reportBatchFailure(_type, first, () -> toMessage(failures));
+            }
+        }
+    }
+
+    private static String toMessage(final List<Supplier<String>> failures) {
+        final StringBuilder sb = new StringBuilder();
+        sb.append(failures.size()).append(" invariants failed:");
+        for (int i = 0; i < failures.size(); i++) {
+            sb.append('\n').append(i + 1).append(". ").append(BrainCheckUtil.safeGetString(failures.get(i)));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,85 @@
+package org.realityforge.braincheck;
+
+/**
+ * Decides whether a deferred invariant condition should be evaluated when sampling or adaptive checking is enabled
+ * or when the call site has been demoted by the profiler. See {@link BrainCheckConfig#invariantSampleRate()},
+ * {@link BrainCheckConfig#adaptiveInvariants()} and {@link BrainCheckConfig#invariantBudget()} for details on how
+ * these modes are configured.
+ */
+final class InvariantSampler {
+    private static final SamplerProvider PROVIDER = new SamplerProvider();
+
+    private InvariantSampler() {}
+
+    /**
+     * Return true if the current check should evaluate the condition.
+     *
+     * @param message the message supplier or message template that identifies the call site.
+     * @return true if the current check should evaluate the condition.
+     */
+    static boolean shouldCheck(final Object message) {
+        final int sampleRate = BrainCheckConfig.invariantSampleRate();
+        return (1 == sampleRate || PROVIDER.shouldCheck(sampleRate))
+                && (!BrainCheckConfig.adaptiveInvariants() || PROVIDER.shouldCheckAdaptively(message))
+                && (0 == BrainCheckConfig.invariantBudget()
+                        || !BrainCheckConfig.profileInvariants()
+                        || PROVIDER.shouldCheckWithinBudget(message));
+    }
+
+    /**
+     * Invoked when the condition fails so that any adaptive state associated with the call site is reset.
+     *
+     * @param message the message supplier or message template that identifies the call site.
+     */
+    static void onFailure(final Object message) {
+        if (BrainCheckConfig.adaptiveInvariants()) {
+            PROVIDER.onFailure(message);
+        }
+    }
+
+    private static final class SamplerProvider extends AbstractSamplerProvider {
+        /**
+         * Use the thread local random number generator so that concurrent checks never contend.
+         */
+        @SuppressWarnings("NonJREEmulationClassesInClientCode")
+        @GwtIncompatible
+        @Override
+        boolean shouldCheck(final int sampleRate) {
+            return 0 == java.util.concurrent.ThreadLocalRandom.current().nextInt(sampleRate);
+        }
+
+        @GwtIncompatible
+        @Override
+        boolean shouldCheckAdaptively(final Object message) {
+            return GuardSites.get(message).shouldCheckAdaptively();
+        }
+
+        @GwtIncompatible
+        @Override
+        boolean shouldCheckWithinBudget(final Object message) {
+            return GuardProfiler.shouldCheck(GuardSites.get(message));
+        }
+
+        @GwtIncompatible
+        @Override
+        void onFailure(final Object message) {
+            GuardSites.get(message).onFailure();
+        }
+    }
+
+    private abstract static class AbstractSamplerProvider {
+        boolean shouldCheck(final int sampleRate) {
+            return true;
+        }
+
+        boolean shouldCheckAdaptively(final Object message) {
+            return true;
+        }
+
+        boolean shouldCheckWithinBudget(final Object message) {
+            return true;
+        }
+
+        void onFailure(final Object message) {}
+    }
+}
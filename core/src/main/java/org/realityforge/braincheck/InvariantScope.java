@@ -0,0 +1,122 @@
+package org.realityforge.braincheck;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * A scope within which invariants and api invariants are checked on the current thread regardless of the
+ * {@link BrainCheckConfig#checkInvariants()} and {@link BrainCheckConfig#checkApiInvariants()} settings.
+ * Checks within a scope are never sampled. This makes it possible to deep check a single request or task,
+ * such as a traced request, while every other thread continues to run with the checks disabled.
+ *
+ * <p>Scopes may be nested and must be closed on the thread that opened them. A typical usage is:</p>
+ *
+ * <pre>
+ * try (InvariantScope scope = InvariantScope.open()) {
+ *     handleRequest(request);
+ * }
+ * </pre>
+ *
+ * <p>While no scope is open on any thread, determining whether a scope is active costs a single volatile
+ * read. The thread local is only consulted while at least one scope is open.</p>
+ */
+@GwtIncompatible
+public final class InvariantScope implements AutoCloseable {
+    private static final ThreadLocal<Depth> c_depth = new ThreadLocal<>();
+    /**
+     * The number of scopes open across all threads.
+     */
+    private static final AtomicInteger c_openCount = new AtomicInteger();
+    private final Depth _depth;
+    private boolean _closed;
+
+    private InvariantScope(final Depth depth) {
+        _depth = depth;
+    }
+
+    /**
+     * Open a scope on the current thread.
+     * The scope must be closed on the same thread.
+     *
+     * @return the scope.
+     */
+    public static InvariantScope open() {
+        Depth depth = c_depth.get();
+        if (null == depth) {
+            depth = new Depth();
+            c_depth.set(depth);
+        }
+        depth._value++;
+        c_openCount.incrementAndGet();
+        return new InvariantScope(depth);
+    }
+
+    /**
+     * Run the action within a scope.
+     *
+     * @param action the action.
+     */
+    public static void run(final Runnable action) {
+        final InvariantScope scope = open();
+        try {
+            action.run();
+        } finally {
+            scope.close();
+        }
+    }
+
+    /**
+     * Invoke the action within a scope and return the result.
+     *
+     * @param action the action.
+     * @param <T>    the type of the result.
+     * @return the result of the action.
+     */
+    public static <T> T call(final Supplier<T> action) {
+        final InvariantScope scope = open();
+        try {
+            return action.get();
+        } finally {
+            scope.close();
+        }
+    }
+
+    /**
+     * Return true if a scope is open on the current thread.
+     *
+     * @return true if a scope is open on the current thread.
+     */
+    public static boolean isActive() {
+        if (0 == c_openCount.get()) {
+            return false;
+        } else {
+            final Depth depth = c_depth.get();
+            return null != depth && depth._value > 0;
+        }
+    }
+
+    /**
+     * Close the scope. Closing a scope that has already been closed has no effect.
+     *
+     * @throws IllegalStateException if the scope is closed on a thread other than the thread that opened it.
+     */
+    @Override
+    public void close() {
+        if (!_closed) {
+            if (c_depth.get() != _depth) {
+                throw new IllegalStateException(
+                        "InvariantScope closed on a thread other than the thread that opened it");
+            }
+            _closed = true;
+            _depth._value--;
+            c_openCount.decrementAndGet();
+        }
+    }
+
+    /**
+     * The number of scopes open on a single thread.
+     */
+    private static final class Depth {
+        private int _value;
+    }
+}
@@ -0,0 +1,29 @@
+package org.realityforge.braincheck;
+
+/**
+ * Determines whether an {@link InvariantScope} is active on the current thread.
+ * Invariant scopes are not supported in GWT or J2CL so this always returns false in those environments.
+ */
+final class InvariantScopeUtil {
+    private static final ScopeProvider PROVIDER = new ScopeProvider();
+
+    private InvariantScopeUtil() {}
+
+    static boolean isActive() {
+        return PROVIDER.isActive();
+    }
+
+    private static final class ScopeProvider extends AbstractScopeProvider {
+        @GwtIncompatible
+        @Override
+        boolean isActive() {
+            return InvariantScope.isActive();
+        }
+    }
+
+    private abstract static class AbstractScopeProvider {
+        boolean isActive() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package org.realityforge.braincheck;
+
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Records guard metrics if {@link BrainCheckConfig#collectMetrics()} is true.
+ * See {@link GuardMetrics} for details on how the metrics are read.
+ *
+ * <p>Each method is passed the key and code of coded guards so that the code can be associated with the call
+ * site. The key is null for guards that are not coded and the code is ignored.</p>
+ */
+final class MetricsUtil {
+    private static final MetricsProvider PROVIDER = new MetricsProvider();
+
+    private MetricsUtil() {}
+
+    static void onEvaluation(
+            final Guards.Type type, final Object message, @Nullable final String key, final int code) {
+        if (BrainCheckConfig.collectMetrics()) {
+            PROVIDER.onEvaluation(type, message, key, code);
+        }
+    }
+
+    static void onFailure(final Guards.Type type, final Object message, @Nullable final String key, final int code) {
+        if (BrainCheckConfig.collectMetrics()) {
+            PROVIDER.onFailure(type, message, key, code);
+        }
+    }
+
+    static void onConditionException(
+            final Guards.Type type, final Object message, @Nullable final String key, final int code) {
+        if (BrainCheckConfig.collectMetrics()) {
+            PROVIDER.onConditionException(type, message, key, code);
+        }
+    }
+
+    static void onSuppressedFailure(
+            final Guards.Type type, final Object message, @Nullable final String key, final int code) {
+        if (BrainCheckConfig.collectMetrics()) {
+            PROVIDER.onSuppressedFailure(type, message, key, code);
+        }
+    }
+
+    private static final class MetricsProvider extends AbstractMetricsProvider {
+        @GwtIncompatible
+        @Override
+        void onEvaluation(final Guards.Type type, final Object message, @Nullable final String key, final int code) {
+            GuardMetrics.recordEvaluation(type, getSite(message, key, code));
+        }
+
+        @GwtIncompatible
+        @Override
+        void onFailure(final Guards.Type type, final Object message, @Nullable final String key, final int code) {
+            GuardMetrics.recordFailure(type, getSite(message, key, code));
+        }
+
+        @GwtIncompatible
+        @Override
+        void onConditionException(
+                final Guards.Type type, final Object message, @Nullable final String key, final int code) {
+            GuardMetrics.recordConditionException(type, getSite(message, key, code));
+        }
+
+        @GwtIncompatible
+        @Override
+        void onSuppressedFailure(
+                final Guards.Type type, final Object message, @Nullable final String key, final int code) {
+            GuardMetrics.recordSuppressedFailure(type, getSite(message, key, code));
+        }
+
+        @GwtIncompatible
+        private static GuardSite getSite(final Object message, @Nullable final String key, final int code) {
+            final GuardSite site = GuardSites.get(message);
+            if (null != key) {
+                site.recordCode(key, code);
+            }
+            return site;
+        }
+    }
+
+    private abstract static class AbstractMetricsProvider {
+        void onEvaluation(final Guards.Type type, final Object message, @Nullable final String key, final int code) {}
+
+        void onFailure(final Guards.Type type, final Object message, @Nullable final String key, final int code) {}
+
+        void onConditionException(
+                final Guards.Type type, final Object message, @Nullable final String key, final int code) {}
+
+        void onSuppressedFailure(
+                final Guards.Type type, final Object message, @Nullable final String key, final int code) {}
+    }
+}
@@ -0,0 +1,56 @@
+package org.realityforge.braincheck;
+
+/**
+ * Records the time taken to evaluate conditions if {@link BrainCheckConfig#profileInvariants()} is true.
+ * See {@link GuardProfiler} for details on how the profiles are read.
+ */
+final class ProfilerUtil {
+    private static final ProfilerProvider PROVIDER = new ProfilerProvider();
+
+    private ProfilerUtil() {}
+
+    /**
+     * Return the time at which the evaluation of a condition started.
+     *
+     * @return the start time or 0 if profiling is disabled.
+     */
+    static long start() {
+        return BrainCheckConfig.profileInvariants() ? PROVIDER.nanoTime() : 0;
+    }
+
+    /**
+     * Record the evaluation of a condition that started at the specified time.
+     *
+     * @param type    the type of the guard.
+     * @param message the message supplier or message template that identifies the call site.
+     * @param start   the value returned by {@link #start()}.
+     */
+    static void onEvaluated(final Guards.Type type, final Object message, final long start) {
+        if (BrainCheckConfig.profileInvariants() && 0 != start) {
+            final long end = PROVIDER.nanoTime();
+            PROVIDER.onEvaluated(type, message, end, end - start);
+        }
+    }
+
+    private static final class ProfilerProvider extends AbstractProfilerProvider {
+        @GwtIncompatible
+        @Override
+        long nanoTime() {
+            return System.nanoTime();
+        }
+
+        @GwtIncompatible
+        @Override
+        void onEvaluated(final Guards.Type type, final Object message, final long end, final long nanos) {
+            GuardProfiler.record(type, GuardSites.get(message), end, nanos);
+        }
+    }
+
+    private abstract static class AbstractProfilerProvider {
+        long nanoTime() {
+            return 0;
+        }
+
+        void onEvaluated(final Guards.Type type, final Object message, final long end, final long nanos) {}
+    }
+}
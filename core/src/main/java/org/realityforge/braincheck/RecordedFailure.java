@@ -0,0 +1,80 @@
+package org.realityforge.braincheck;
+
+import java.util.Objects;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * A guard failure that was recorded rather than thrown.
+ * See {@link FailureRecorder} for details.
+ */
+@GwtIncompatible
+public final class RecordedFailure {
+    private final GuardMetrics.Type _type;
+    private final String _callSite;
+    @Nullable
+    private final String _message;
+    private final long _timestamp;
+    private final String _threadName;
+
+    RecordedFailure(
+            final GuardMetrics.Type type,
+            final String callSite,
+            @Nullable final String message,
+            final long timestamp,
+            final String threadName) {
+        _type = Objects.requireNonNull(type);
+        _callSite = Objects.requireNonNull(callSite);
+        _message = message;
+        _timestamp = timestamp;
+        _threadName = Objects.requireNonNull(threadName);
+    }
+
+    public GuardMetrics.Type getType() {
+        return _type;
+    }
+
+    /**
+     * Return the name of the call site that failed.
+     * The name is the class, method and line number of the first guard to use the message supplier or the
+     * message template. See {@link GuardMetrics.Counts#getName()} for details.
+     *
+     * @return the name of the call site.
+     */
+    public String getCallSite() {
+        return _callSite;
+    }
+
+    /**
+     * Return the message describing the failure.
+     * The message is null unless {@link BrainCheckConfig#verboseErrorMessages()} was true when the failure occurred.
+     *
+     * @return the message describing the failure or null.
+     */
+    @Nullable
+    public String getMessage() {
+        return _message;
+    }
+
+    /**
+     * Return the time the failure occurred as returned by {@link System#currentTimeMillis()}.
+     *
+     * @return the time the failure occurred.
+     */
+    public long getTimestamp() {
+        return _timestamp;
+    }
+
+    /**
+     * Return the name of the thread on which the failure occurred.
+     *
+     * @return the name of the thread on which the failure occurred.
+     */
+    public String getThreadName() {
+        return _threadName;
+    }
+
+    @Override
+    public String toString() {
+        return _type + " failure at " + _callSite + (null == _message ? "" : ": " + _message);
+    }
+}
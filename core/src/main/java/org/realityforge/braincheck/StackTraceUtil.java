@@ -6,25 +6,50 @@ final class StackTraceUtil {
     private StackTraceUtil() {}
 
     static StackTraceElement[] getStackTrace(final int frameCountToDrop) {
-        return PROVIDER.getStackTrace(frameCountToDrop + 1);
+        return PROVIDER.getStackTrace(frameCountToDrop + 1, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Return the stack trace of the current thread limited to the specified number of frames.
+     *
+     * @param frameCountToDrop the number of frames to drop, starting with the frame of the caller.
+     * @param maxFrameCount    the maximum number of frames to return.
+     * @return the stack trace.
+     */
+    static StackTraceElement[] getStackTrace(final int frameCountToDrop, final int maxFrameCount) {
+        return PROVIDER.getStackTrace(frameCountToDrop + 1, maxFrameCount);
+    }
+
+    /**
+     * Return the stack trace reported to guard listeners, limited to
+     * {@link BrainCheckConfig#guardStackFrameCount()} frames.
+     *
+     * @param frameCountToDrop the number of frames to drop, starting with the frame of the caller.
+     * @return the stack trace.
+     */
+    static StackTraceElement[] getGuardStackTrace(final int frameCountToDrop) {
+        final int frameCount = BrainCheckConfig.guardStackFrameCount();
+        return PROVIDER.getStackTrace(frameCountToDrop + 1, 0 == frameCount ? Integer.MAX_VALUE : frameCount);
     }
 
     private static final class StackTraceProvider extends AbstractStackTraceProvider {
+        /**
+         * The StackWalker lazily walks the stack so frames that are dropped or that are beyond the maximum
+         * frame count are never converted into {@link StackTraceElement} instances.
+         */
         @SuppressWarnings("NonJREEmulationClassesInClientCode")
         @GwtIncompatible
         @Override
-        StackTraceElement[] getStackTrace(final int frameCountToDrop) {
-            final StackTraceElement[] stackTrace =
-                    java.lang.Thread.currentThread().getStackTrace();
-            final int skipCount = frameCountToDrop + 1;
-            final StackTraceElement[] result = new StackTraceElement[Math.max(stackTrace.length - skipCount, 0)];
-            System.arraycopy(stackTrace, skipCount, result, 0, result.length);
-            return result;
+        StackTraceElement[] getStackTrace(final int frameCountToDrop, final int maxFrameCount) {
+            return java.lang.StackWalker.getInstance().walk(frames -> frames.skip(frameCountToDrop)
+                    .limit(maxFrameCount)
+                    .map(java.lang.StackWalker.StackFrame::toStackTraceElement)
+                    .toArray(StackTraceElement[]::new));
         }
     }
 
     private abstract static class AbstractStackTraceProvider {
-        StackTraceElement[] getStackTrace(final int frameCountToDrop) {
+        StackTraceElement[] getStackTrace(final int frameCountToDrop, final int maxFrameCount) {
             return new StackTraceElement[0];
         }
     }
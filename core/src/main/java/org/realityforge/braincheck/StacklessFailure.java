@@ -0,0 +1,23 @@
+package org.realityforge.braincheck;
+
+import org.jspecify.annotations.Nullable;
+
+/**
+ * The exception thrown by failing guards when stackless failures are enabled or the failure is suppressed.
+ * The exception does not capture a stack trace so creating it costs little more than the allocation.
+ * A fresh instance is created for each failure rather than sharing a pre-allocated instance as a shared
+ * instance would accumulate any suppressed exceptions added by callers.
+ */
+@GwtIncompatible
+final class StacklessFailure extends IllegalStateException {
+    private static final long serialVersionUID = 1L;
+
+    StacklessFailure(@Nullable final String message) {
+        super(message);
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
@@ -0,0 +1,170 @@
+package org.realityforge.braincheck;
+
+/**
+ * Dispatches guards to the listeners registered for the thread that invoked the guard.
+ * This allows tests that run in parallel to each route guards to their own listeners. The dispatcher is
+ * only installed in {@link Guards} while at least one thread-scoped listener is registered so threads
+ * without listeners pay nothing beyond the existing listener check. The listeners of a thread are removed from the
+ * thread once the last listener is removed so that pooled threads do not retain them.
+ */
+@GwtIncompatible
+final class ThreadGuardListeners implements Guards.OnGuardListener {
+    private static final ThreadGuardListeners INSTANCE = new ThreadGuardListeners();
+    private static final Guards.OnGuardListener[] NO_LISTENERS = new Guards.OnGuardListener[0];
+    private static final ThreadLocal<Holder> c_holder = new ThreadLocal<>();
+    /**
+     * The number of registered listeners across all threads. Only accessed while holding the lock on this class.
+     */
+    private static int c_registrationCount;
+
+    private ThreadGuardListeners() {}
+
+    /**
+     * Register a listener for the current thread.
+     *
+     * @param listener the listener.
+     * @return the action that removes the listener. The action may be invoked from any thread.
+     */
+    static Runnable add(final Guards.OnGuardListener listener) {
+        Holder holder = c_holder.get();
+        if (null == holder) {
+            holder = new Holder();
+            c_holder.set(holder);
+        }
+        holder.add(listener);
+        synchronized (ThreadGuardListeners.class) {
+            if (0 == c_registrationCount++) {
+                Guards.setThreadOnGuardListener(INSTANCE);
+            }
+        }
+        final Holder owner = holder;
+        return () -> remove(owner, listener);
+    }
+
+    private static void remove(final Holder holder, final Guards.OnGuardListener listener) {
+        if (holder.remove(listener)) {
+            // A holder emptied from another thread is released when the owning thread next reads its listeners
+            if (Thread.currentThread() == holder._thread && holder.isEmpty()) {
+                c_holder.remove();
+            }
+            synchronized (ThreadGuardListeners.class) {
+                if (0 == --c_registrationCount) {
+                    Guards.setThreadOnGuardListener(null);
+                }
+            }
+        }
+    }
+
+    /**
+     * Return true if the current thread retains the holder of its listeners.
+     *
+     * @return true if the current thread retains the holder of its listeners.
+     */
+    static boolean isHolderRetained() {
+        return null != c_holder.get();
+    }
+
+    private static Guards.OnGuardListener[] currentListeners() {
+        final Holder holder = c_holder.get();
+        if (null == holder) {
+            return NO_LISTENERS;
+        } else {
+            final Guards.OnGuardListener[] listeners = holder._listeners;
+            if (0 == listeners.length) {
+                c_holder.remove();
+            }
+            return listeners;
+        }
+    }
+
+    @Override
+    public boolean isInterestedIn(final Guards.Type type) {
+        for (final Guards.OnGuardListener listener : currentListeners()) {
+            if (listener.isInterestedIn(type)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean isInterestedIn(final Guards.Type type, final String message) {
+        for (final Guards.OnGuardListener listener : currentListeners()) {
+            if (listener.isInterestedIn(type) && listener.isInterestedIn(type, message)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean isInterestedIn(final Guards.Type type, final String key, final int code) {
+        for (final Guards.OnGuardListener listener : currentListeners()) {
+            if (listener.isInterestedIn(type) && listener.isInterestedIn(type, key, code)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void onGuard(final Guards.Type type, final String message, final StackTraceElement[] stackTrace) {
+        for (final Guards.OnGuardListener listener : currentListeners()) {
+            if (listener.isInterestedIn(type) && listener.isInterestedIn(type, message)) {
+                listener.onGuard(type, message, stackTrace);
+            }
+        }
+    }
+
+    @Override
+    public void onGuard(
+            final Guards.Type type,
+            final String key,
+            final int code,
+            final String message,
+            final StackTraceElement[] stackTrace) {
+        for (final Guards.OnGuardListener listener : currentListeners()) {
+            if (listener.isInterestedIn(type) && listener.isInterestedIn(type, key, code)) {
+                listener.onGuard(type, key, code, message, stackTrace);
+            }
+        }
+    }
+
+    /**
+     * The listeners registered for a single thread.
+     * The holder is shared with the registrations so a listener can be removed from a thread other than the
+     * thread that registered it. The array is never modified once published.
+     */
+    private static final class Holder {
+        /**
+         * The thread that registered the listeners.
+         */
+        private final Thread _thread = Thread.currentThread();
+
+        private volatile Guards.OnGuardListener[] _listeners = NO_LISTENERS;
+
+        boolean isEmpty() {
+            return 0 == _listeners.length;
+        }
+
+        synchronized void add(final Guards.OnGuardListener listener) {
+            final Guards.OnGuardListener[] listeners = new Guards.OnGuardListener[_listeners.length + 1];
+            System.arraycopy(_listeners, 0, listeners, 0, _listeners.length);
+            listeners[_listeners.length] = listener;
+            _listeners = listeners;
+        }
+
+        synchronized boolean remove(final Guards.OnGuardListener listener) {
+            for (int i = 0; i < _listeners.length; i++) {
+                if (_listeners[i] == listener) {
+                    final Guards.OnGuardListener[] listeners = new Guards.OnGuardListener[_listeners.length - 1];
+                    System.arraycopy(_listeners, 0, listeners, 0, i);
+                    System.arraycopy(_listeners, i + 1, listeners, i, listeners.length - i);
+                    _listeners = listeners;
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -20,10 +20,22 @@ addSystemPropertyFromGoogDefine('braincheck.check_invariants', checkInvariants);
 /** @define {string} */
 const checkApiInvariants = goog.define('braincheck.check_api_invariants', 'false');
 addSystemPropertyFromGoogDefine('braincheck.check_api_invariants', checkApiInvariants);
+/** @define {string} */
+const checkCheapInvariants = goog.define('braincheck.check_cheap_invariants', 'true');
+addSystemPropertyFromGoogDefine('braincheck.check_cheap_invariants', checkCheapInvariants);
+/** @define {string} */
+const checkExpensiveInvariants = goog.define('braincheck.check_expensive_invariants', 'false');
+addSystemPropertyFromGoogDefine('braincheck.check_expensive_invariants', checkExpensiveInvariants);
+/** @define {string} */
+const checkParanoidInvariants = goog.define('braincheck.check_paranoid_invariants', 'false');
+addSystemPropertyFromGoogDefine('braincheck.check_paranoid_invariants', checkParanoidInvariants);
 
 exports = {
   check_api_invariants: checkApiInvariants,
+  check_cheap_invariants: checkCheapInvariants,
+  check_expensive_invariants: checkExpensiveInvariants,
   check_invariants: checkInvariants,
+  check_paranoid_invariants: checkParanoidInvariants,
   environment,
   verbose_error_messages: verboseErrorMessages,
 };
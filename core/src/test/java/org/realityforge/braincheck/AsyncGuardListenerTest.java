@@ -0,0 +1,218 @@
+package org.realityforge.braincheck;
+
+import static org.testng.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import org.testng.annotations.Test;
+
+public class AsyncGuardListenerTest extends AbstractTest {
+    private static final StackTraceElement[] STACK_TRACE = new StackTraceElement[0];
+
+    @Test
+    public void deliversEventsOnConsumerThread() {
+        final List<String> messages = Collections.synchronizedList(new ArrayList<>());
+        final List<String> threadNames = Collections.synchronizedList(new ArrayList<>());
+        try (AsyncGuardListener listener = new AsyncGuardListener(
+                (type, message, stackTrace) -> {
+                    messages.add(type + ": " + message);
+                    threadNames.add(Thread.currentThread().getName());
+                },
+                16,
+                AsyncGuardListener.OverflowPolicy.DROP)) {
+            BrainCheckTestUtil.setOnGuardListener(listener);
+
+            Guards.invariant(() -> true, () -> "A");
+            Guards.apiInvariant(true, "B %s", 1);
+            listener.flush();
+
+            assertEquals(messages, List.of("INVARIANT: A", "API_INVARIANT: B 1"));
+            assertEquals(threadNames, List.of("braincheck-guard-listener", "braincheck-guard-listener"));
+            assertEquals(listener.getDroppedCount(), 0);
+        }
+    }
+
+    @Test
+    public void deliversCodedEvents() {
+        final List<String> messages = Collections.synchronizedList(new ArrayList<>());
+        try (AsyncGuardListener listener = new AsyncGuardListener(
+                new BrainCheckTestUtil.OnGuardListener() {
+                    @Override
+                    public void onGuard(
+                            final BrainCheckTestUtil.GuardType type,
+                            final String message,
+                            final StackTraceElement[] stackTrace) {
+                        messages.add(type + ": " + message);
+                    }
+
+                    @Override
+                    public void onGuard(
+                            final BrainCheckTestUtil.GuardType type,
+                            final String key,
+                            final int code,
+                            final String message,
+                            final StackTraceElement[] stackTrace) {
+                        messages.add(type + ": " + key + "/" + code + " " + message);
+                    }
+                },
+                16,
+                AsyncGuardListener.OverflowPolicy.DROP)) {
+            BrainCheckTestUtil.setOnGuardListener(listener);
+
+            Guards.invariant("Test", 12, () -> true, () -> "A");
+            Guards.invariant(() -> true, () -> "B");
+            listener.flush();
+
+            assertEquals(messages, List.of("INVARIANT: Test/12 A", "INVARIANT: B"));
+        }
+    }
+
+    @Test
+    public void capacityIsRoundedUp() {
+        try (AsyncGuardListener listener =
+                new AsyncGuardListener((type, message, stackTrace) -> {}, 5, AsyncGuardListener.OverflowPolicy.DROP)) {
+            assertEquals(listener.getCapacity(), 8);
+        }
+    }
+
+    @Test
+    public void overflow_drop() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        try (AsyncGuardListener listener =
+                new AsyncGuardListener(blockingListener(latch), 4, AsyncGuardListener.OverflowPolicy.DROP)) {
+            // The first event is taken by the consumer which then blocks, the next 4 fill the buffer
+            for (int i = 0; i < 10; i++) {
+                listener.onGuard(BrainCheckTestUtil.GuardType.INVARIANT, "M" + i, STACK_TRACE);
+                if (0 == i) {
+                    waitForEmptyBuffer(listener);
+                }
+            }
+            assertEquals(listener.getDroppedCount(), 5);
+            latch.countDown();
+        }
+    }
+
+    @Test
+    public void overflow_sample() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        try (AsyncGuardListener listener =
+                new AsyncGuardListener(blockingListener(latch), 1024, AsyncGuardListener.OverflowPolicy.SAMPLE)) {
+            listener.onGuard(BrainCheckTestUtil.GuardType.INVARIANT, "M", STACK_TRACE);
+            waitForEmptyBuffer(listener);
+            for (int i = 0; i < 2048; i++) {
+                listener.onGuard(BrainCheckTestUtil.GuardType.INVARIANT, "M" + i, STACK_TRACE);
+            }
+            // The first 512 events are accepted and then events are sampled until the buffer is full
+            final long droppedCount = listener.getDroppedCount();
+            assertTrue(droppedCount > 1024, "droppedCount = " + droppedCount);
+            assertTrue(droppedCount < 2048 - 512, "droppedCount = " + droppedCount);
+            latch.countDown();
+        }
+    }
+
+    @Test
+    public void overflow_block() {
+        final List<String> messages = Collections.synchronizedList(new ArrayList<>());
+        try (AsyncGuardListener listener = new AsyncGuardListener(
+                (type, message, stackTrace) -> {
+                    LockSupport.parkNanos(100_000L);
+                    messages.add(message);
+                },
+                2,
+                AsyncGuardListener.OverflowPolicy.BLOCK)) {
+            for (int i = 0; i < 20; i++) {
+                listener.onGuard(BrainCheckTestUtil.GuardType.INVARIANT, "M" + i, STACK_TRACE);
+            }
+            listener.flush();
+
+            assertEquals(listener.getDroppedCount(), 0);
+            assertEquals(messages.size(), 20);
+            assertEquals(messages.get(19), "M19");
+        }
+    }
+
+    @Test
+    public void consumerThreadNeverBlocks() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final List<String> messages = Collections.synchronizedList(new ArrayList<>());
+        final AtomicReference<AsyncGuardListener> reference = new AtomicReference<>();
+        final AsyncGuardListener listener = new AsyncGuardListener(
+                (type, message, stackTrace) -> {
+                    messages.add(message);
+                    if ("M".equals(message)) {
+                        final AsyncGuardListener self = reference.get();
+                        for (int i = 0; i < 4; i++) {
+                            self.onGuard(BrainCheckTestUtil.GuardType.INVARIANT, "N" + i, STACK_TRACE);
+                        }
+                        self.flush();
+                        self.close();
+                        latch.countDown();
+                    }
+                },
+                2,
+                AsyncGuardListener.OverflowPolicy.BLOCK);
+        reference.set(listener);
+        listener.onGuard(BrainCheckTestUtil.GuardType.INVARIANT, "M", STACK_TRACE);
+        latch.await();
+        listener.close();
+
+        // The buffer holds 2 events so the remaining events generated on the consumer thread are dropped
+        assertEquals(messages, List.of("M", "N0", "N1"));
+        assertEquals(listener.getDroppedCount(), 2);
+    }
+
+    @Test
+    public void listenerErrorsAreCounted() {
+        try (AsyncGuardListener listener = new AsyncGuardListener(
+                (type, message, stackTrace) -> {
+                    throw new IllegalStateException();
+                },
+                4,
+                AsyncGuardListener.OverflowPolicy.DROP)) {
+            listener.onGuard(BrainCheckTestUtil.GuardType.INVARIANT, "M", STACK_TRACE);
+            listener.onGuard(BrainCheckTestUtil.GuardType.INVARIANT, "M", STACK_TRACE);
+            listener.flush();
+
+            assertEquals(listener.getListenerErrorCount(), 2);
+        }
+    }
+
+    @Test
+    public void close_deliversRemainingEventsAndDropsLaterEvents() {
+        final List<String> messages = Collections.synchronizedList(new ArrayList<>());
+        final AsyncGuardListener listener = new AsyncGuardListener(
+                (type, message, stackTrace) -> messages.add(message), 64, AsyncGuardListener.OverflowPolicy.DROP);
+        for (int i = 0; i < 50; i++) {
+            listener.onGuard(BrainCheckTestUtil.GuardType.INVARIANT, "M" + i, STACK_TRACE);
+        }
+        listener.close();
+
+        assertEquals(messages.size(), 50);
+
+        listener.onGuard(BrainCheckTestUtil.GuardType.INVARIANT, "Late", STACK_TRACE);
+
+        assertEquals(messages.size(), 50);
+        assertEquals(listener.getDroppedCount(), 1);
+    }
+
+    private static BrainCheckTestUtil.OnGuardListener blockingListener(final CountDownLatch latch) {
+        return (type, message, stackTrace) -> {
+            try {
+                latch.await();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+    }
+
+    private static void waitForEmptyBuffer(final AsyncGuardListener listener) throws InterruptedException {
+        // Wait for the consumer to take the first event and block in the listener
+        for (int i = 0; i < 1000 && 0 != listener.getSize(); i++) {
+            Thread.sleep(1);
+        }
+    }
+}
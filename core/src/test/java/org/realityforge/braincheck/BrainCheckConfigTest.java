@@ -0,0 +1,115 @@
+package org.realityforge.braincheck;
+
+import static org.testng.Assert.*;
+
+import org.testng.annotations.Test;
+
+public class BrainCheckConfigTest extends AbstractTest {
+    @Test
+    public void settingsAreUpdated() {
+        assertTrue(BrainCheckConfig.verboseErrorMessages());
+        assertTrue(BrainCheckConfig.checkInvariants());
+        assertTrue(BrainCheckConfig.checkApiInvariants());
+
+        BrainCheckConfig.setVerboseErrorMessages(false);
+
+        assertFalse(BrainCheckConfig.verboseErrorMessages());
+        assertTrue(BrainCheckConfig.checkInvariants());
+        assertTrue(BrainCheckConfig.checkApiInvariants());
+
+        BrainCheckConfig.setCheckInvariants(false);
+
+        assertFalse(BrainCheckConfig.verboseErrorMessages());
+        assertFalse(BrainCheckConfig.checkInvariants());
+        assertTrue(BrainCheckConfig.checkApiInvariants());
+
+        BrainCheckConfig.setCheckApiInvariants(false);
+
+        assertFalse(BrainCheckConfig.verboseErrorMessages());
+        assertFalse(BrainCheckConfig.checkInvariants());
+        assertFalse(BrainCheckConfig.checkApiInvariants());
+
+        BrainCheckTestUtil.resetConfig(false);
+
+        assertTrue(BrainCheckConfig.verboseErrorMessages());
+        assertTrue(BrainCheckConfig.checkInvariants());
+        assertTrue(BrainCheckConfig.checkApiInvariants());
+        assertTrue(BrainCheckConfig.checkCheapInvariants());
+        assertTrue(BrainCheckConfig.checkExpensiveInvariants());
+        assertFalse(BrainCheckConfig.checkParanoidInvariants());
+
+        BrainCheckConfig.setCheckParanoidInvariants(true);
+
+        assertTrue(BrainCheckConfig.checkParanoidInvariants());
+
+        BrainCheckTestUtil.resetConfig(true);
+
+        assertTrue(BrainCheckConfig.checkCheapInvariants());
+        assertFalse(BrainCheckConfig.checkExpensiveInvariants());
+        assertFalse(BrainCheckConfig.checkParanoidInvariants());
+    }
+
+    @Test
+    public void settingsAreVisibleToOtherThreads() throws Exception {
+        BrainCheckConfig.setCheckInvariants(false);
+
+        final boolean[] result = new boolean[] {true};
+        final Thread thread = new Thread(() -> {
+            result[0] = BrainCheckConfig.checkInvariants();
+        });
+        thread.start();
+        thread.join();
+
+        assertFalse(result[0]);
+    }
+
+    @Test
+    public void parseSampleRate() {
+        assertEquals(BrainCheckConfig.parseSampleRate("1"), 1);
+        assertEquals(BrainCheckConfig.parseSampleRate("1000"), 1000);
+        assertEquals(BrainCheckConfig.parseSampleRate("1/1000"), 1000);
+    }
+
+    @Test
+    public void parseSampleRate_invalid() {
+        for (final String value : new String[] {"0", "1/0", "-5", "2/3", "X"}) {
+            final IllegalStateException exception =
+                    expectThrows(IllegalStateException.class, () -> BrainCheckConfig.parseSampleRate(value));
+            assertEquals(
+                    exception.getMessage(),
+                    "Invalid value '" + value + "' specified for setting braincheck.invariant_sample_rate. "
+                            + "Expected a value of the form '1/N' or 'N' where N >= 1");
+        }
+    }
+
+    @Test
+    public void parseIntSetting() {
+        assertEquals(BrainCheckConfig.parseIntSetting("braincheck.x", "0", 0), 0);
+        assertEquals(BrainCheckConfig.parseIntSetting("braincheck.x", " 42 ", 1), 42);
+    }
+
+    @Test
+    public void parseIntSetting_invalid() {
+        for (final String value : new String[] {"0", "-5", "X", ""}) {
+            final IllegalStateException exception = expectThrows(
+                    IllegalStateException.class, () -> BrainCheckConfig.parseIntSetting("braincheck.x", value, 1));
+            assertEquals(
+                    exception.getMessage(),
+                    "Invalid value '" + value + "' specified for setting braincheck.x. Expected an integer >= 1");
+        }
+    }
+
+    @Test
+    public void parseFailureMode() {
+        assertEquals(BrainCheckConfig.parseFailureMode("throw"), BrainCheckConfig.FailureMode.THROW);
+        assertEquals(BrainCheckConfig.parseFailureMode("record"), BrainCheckConfig.FailureMode.RECORD);
+        assertEquals(BrainCheckConfig.parseFailureMode(" LOG "), BrainCheckConfig.FailureMode.LOG);
+
+        final IllegalStateException exception =
+                expectThrows(IllegalStateException.class, () -> BrainCheckConfig.parseFailureMode("ignore"));
+        assertEquals(
+                exception.getMessage(),
+                "Invalid value 'ignore' specified for setting braincheck.failure_mode. "
+                        + "Expected one of 'throw', 'record' or 'log'");
+    }
+}
@@ -36,4 +36,263 @@ public class BrainCheckTestUtilTest extends AbstractTest {
                         + "API_INVARIANT: Blah @"
                         + " org.realityforge.braincheck.BrainCheckTestUtilTest:onGuardListenerReceivesMessages");
     }
+
+    @Test
+    public void onGuardListenerReceivesFormattedMessages() {
+        final GuardRecorder recorder = new GuardRecorder();
+        BrainCheckTestUtil.setOnGuardListener(recorder);
+
+        Guards.invariant(true, "Value %s is %s", 1, "ok");
+
+        assertEquals(
+                recorder.toString(),
+                "INVARIANT: Value 1 is ok @"
+                        + " org.realityforge.braincheck.BrainCheckTestUtilTest"
+                        + ":onGuardListenerReceivesFormattedMessages");
+    }
+
+    @Test
+    public void onGuardListenerFiltersGuards() {
+        final GuardRecorder recorder = new GuardRecorder();
+        BrainCheckTestUtil.setOnGuardListener(new BrainCheckTestUtil.OnGuardListener() {
+            @Override
+            public boolean isInterestedIn(final BrainCheckTestUtil.GuardType type) {
+                return BrainCheckTestUtil.GuardType.INVARIANT == type;
+            }
+
+            @Override
+            public boolean isInterestedIn(final BrainCheckTestUtil.GuardType type, final String message) {
+                return message.startsWith("Key-");
+            }
+
+            @Override
+            public void onGuard(
+                    final BrainCheckTestUtil.GuardType type,
+                    final String message,
+                    final StackTraceElement[] stackTrace) {
+                recorder.onGuard(type, message, stackTrace);
+            }
+        });
+
+        Guards.apiInvariant(
+                () -> true,
+                () -> {
+                    throw new AssertionError("Message should not be rendered for uninteresting guard type");
+                });
+        Guards.invariant(() -> true, () -> "Other-0001: Ignored");
+        Guards.invariant(() -> true, () -> "Key-0001: Recorded");
+
+        assertEquals(
+                recorder.toString(),
+                "INVARIANT: Key-0001: Recorded @"
+                        + " org.realityforge.braincheck.BrainCheckTestUtilTest:onGuardListenerFiltersGuards");
+    }
+
+    @Test
+    public void addOnGuardListener() {
+        final GuardRecorder recorder1 = new GuardRecorder();
+        final GuardRecorder recorder2 = new GuardRecorder();
+        final BrainCheckTestUtil.ListenerRegistration registration1 = BrainCheckTestUtil.addOnGuardListener(recorder1);
+        final BrainCheckTestUtil.ListenerRegistration registration2 = BrainCheckTestUtil.addOnGuardListener(recorder2);
+
+        Guards.invariant(() -> true, () -> "A");
+
+        registration1.remove();
+        // Removing a second time has no effect
+        registration1.remove();
+
+        Guards.invariant(() -> true, () -> "B");
+
+        registration2.remove();
+
+        Guards.invariant(() -> true, () -> "C");
+
+        assertEquals(
+                recorder1.toString(),
+                "INVARIANT: A @ org.realityforge.braincheck.BrainCheckTestUtilTest:addOnGuardListener");
+        assertEquals(
+                recorder2.toString(),
+                "INVARIANT: A @ org.realityforge.braincheck.BrainCheckTestUtilTest:addOnGuardListener\n"
+                        + "INVARIANT: B @ org.realityforge.braincheck.BrainCheckTestUtilTest:addOnGuardListener");
+    }
+
+    @Test
+    public void addOnGuardListener_filtersPerListener() {
+        final GuardRecorder recorder = new GuardRecorder();
+        final StringBuilder invariantMessages = new StringBuilder();
+        BrainCheckTestUtil.addOnGuardListener(recorder);
+        BrainCheckTestUtil.addOnGuardListener(new BrainCheckTestUtil.OnGuardListener() {
+            @Override
+            public boolean isInterestedIn(final BrainCheckTestUtil.GuardType type) {
+                return BrainCheckTestUtil.GuardType.INVARIANT == type;
+            }
+
+            @Override
+            public void onGuard(
+                    final BrainCheckTestUtil.GuardType type,
+                    final String message,
+                    final StackTraceElement[] stackTrace) {
+                invariantMessages.append(message);
+            }
+        });
+
+        Guards.apiInvariant(() -> true, () -> "A");
+        Guards.invariant(() -> true, () -> "B");
+
+        assertEquals(invariantMessages.toString(), "B");
+        assertEquals(
+                recorder.toString(),
+                "API_INVARIANT: A @ org.realityforge.braincheck.BrainCheckTestUtilTest"
+                        + ":addOnGuardListener_filtersPerListener\n"
+                        + "INVARIANT: B @ org.realityforge.braincheck.BrainCheckTestUtilTest"
+                        + ":addOnGuardListener_filtersPerListener");
+    }
+
+    @Test
+    public void setOnGuardListener_replacesAddedListeners() {
+        final GuardRecorder recorder1 = new GuardRecorder();
+        final GuardRecorder recorder2 = new GuardRecorder();
+        BrainCheckTestUtil.addOnGuardListener(recorder1);
+        BrainCheckTestUtil.setOnGuardListener(recorder2);
+
+        Guards.invariant(() -> true, () -> "A");
+
+        assertEquals(recorder1.toString(), "");
+        assertEquals(
+                recorder2.toString(),
+                "INVARIANT: A @ org.realityforge.braincheck.BrainCheckTestUtilTest"
+                        + ":setOnGuardListener_replacesAddedListeners");
+    }
+
+    @Test
+    public void addOnGuardListener_fromAnotherThread() throws Exception {
+        final GuardRecorder recorder = new GuardRecorder();
+        final Thread thread = new Thread(() -> BrainCheckTestUtil.addOnGuardListener(recorder));
+        thread.start();
+        thread.join();
+
+        Guards.invariant(() -> true, () -> "A");
+
+        assertEquals(
+                recorder.toString(),
+                "INVARIANT: A @ org.realityforge.braincheck.BrainCheckTestUtilTest"
+                        + ":addOnGuardListener_fromAnotherThread");
+    }
+
+    @Test
+    public void addThreadOnGuardListener() throws Exception {
+        final GuardRecorder globalRecorder = new GuardRecorder();
+        final GuardRecorder threadRecorder = new GuardRecorder();
+        final GuardRecorder otherThreadRecorder = new GuardRecorder();
+        BrainCheckTestUtil.addOnGuardListener(globalRecorder);
+        final BrainCheckTestUtil.ListenerRegistration registration =
+                BrainCheckTestUtil.addThreadOnGuardListener(threadRecorder);
+
+        final Thread thread = new Thread(() -> {
+            final BrainCheckTestUtil.ListenerRegistration r =
+                    BrainCheckTestUtil.addThreadOnGuardListener(otherThreadRecorder);
+            Guards.invariant(() -> true, () -> "B");
+            r.remove();
+        });
+        thread.start();
+        thread.join();
+
+        Guards.invariant(() -> true, () -> "A");
+
+        // Resetting the global listeners does not remove thread-scoped listeners
+        BrainCheckTestUtil.setOnGuardListener(null);
+
+        Guards.invariant(() -> true, () -> "C");
+
+        registration.remove();
+        // Removing a second time has no effect
+        registration.remove();
+
+        Guards.invariant(() -> true, () -> "D");
+
+        assertTrue(globalRecorder.toString().startsWith("INVARIANT: B @"));
+        assertTrue(globalRecorder
+                .toString()
+                .endsWith("\nINVARIANT: A @ " + BrainCheckTestUtilTest.class.getName() + ":addThreadOnGuardListener"));
+        assertEquals(
+                threadRecorder.toString(),
+                "INVARIANT: A @ org.realityforge.braincheck.BrainCheckTestUtilTest:addThreadOnGuardListener\n"
+                        + "INVARIANT: C @ org.realityforge.braincheck.BrainCheckTestUtilTest:addThreadOnGuardListener");
+        assertTrue(otherThreadRecorder.toString().startsWith("INVARIANT: B @"));
+        assertFalse(otherThreadRecorder.toString().contains("INVARIANT: A"));
+    }
+
+    @Test
+    public void addThreadOnGuardListener_removeFromAnotherThread() throws Exception {
+        final GuardRecorder recorder = new GuardRecorder();
+        final BrainCheckTestUtil.ListenerRegistration registration =
+                BrainCheckTestUtil.addThreadOnGuardListener(recorder);
+
+        final Thread thread = new Thread(registration::remove);
+        thread.start();
+        thread.join();
+
+        Guards.invariant(() -> true, () -> "A");
+
+        assertEquals(recorder.toString(), "");
+    }
+
+    @Test
+    public void addThreadOnGuardListener_lastRemovalReleasesHolder() {
+        final BrainCheckTestUtil.ListenerRegistration registration1 =
+                BrainCheckTestUtil.addThreadOnGuardListener(new GuardRecorder());
+        final BrainCheckTestUtil.ListenerRegistration registration2 =
+                BrainCheckTestUtil.addThreadOnGuardListener(new GuardRecorder());
+
+        registration1.remove();
+
+        assertTrue(ThreadGuardListeners.isHolderRetained());
+
+        registration2.remove();
+
+        assertFalse(ThreadGuardListeners.isHolderRetained());
+    }
+
+    @Test
+    public void onGuardListenerReceivesCodedGuards() {
+        final GuardRecorder recorder = new GuardRecorder();
+        final StringBuilder codes = new StringBuilder();
+        BrainCheckTestUtil.addOnGuardListener(recorder);
+        BrainCheckTestUtil.addOnGuardListener(new BrainCheckTestUtil.OnGuardListener() {
+            @Override
+            public boolean isInterestedIn(final BrainCheckTestUtil.GuardType type, final String key, final int code) {
+                return "Arez".equals(key);
+            }
+
+            @Override
+            public void onGuard(
+                    final BrainCheckTestUtil.GuardType type,
+                    final String message,
+                    final StackTraceElement[] stackTrace) {
+                fail("Coded guards should not be rendered with the code prefix");
+            }
+
+            @Override
+            public void onGuard(
+                    final BrainCheckTestUtil.GuardType type,
+                    final String key,
+                    final int code,
+                    final String message,
+                    final StackTraceElement[] stackTrace) {
+                codes.append(type).append(' ').append(key).append(' ').append(code).append(' ').append(message);
+                codes.append('\n');
+            }
+        });
+
+        Guards.invariant("Arez", 12, () -> true, () -> "Some message");
+        Guards.apiInvariant("Other", 3, () -> true, () -> "Other message");
+
+        assertEquals(codes.toString(), "INVARIANT Arez 12 Some message\n");
+        assertEquals(
+                recorder.toString(),
+                "INVARIANT: Arez-0012: Some message @"
+                        + " org.realityforge.braincheck.BrainCheckTestUtilTest:onGuardListenerReceivesCodedGuards\n"
+                        + "API_INVARIANT: Other-0003: Other message @"
+                        + " org.realityforge.braincheck.BrainCheckTestUtilTest:onGuardListenerReceivesCodedGuards");
+    }
 }
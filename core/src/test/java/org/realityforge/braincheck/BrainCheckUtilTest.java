@@ -19,9 +19,106 @@ public class BrainCheckUtilTest {
                 + "java.lang.RuntimeException: X\n"));
     }
 
+    @Test
+    public void safeFormat() {
+        assertEquals(BrainCheckUtil.safeFormat("No arguments"), "No arguments");
+        assertEquals(BrainCheckUtil.safeFormat("Value %s", 1), "Value 1");
+        assertEquals(BrainCheckUtil.safeFormat("Values %s and %s.", "a", null), "Values a and null.");
+        assertEquals(BrainCheckUtil.safeFormat("Missing %s and %s", "a"), "Missing a and %s");
+        assertEquals(BrainCheckUtil.safeFormat("Surplus %s", "a", "b"), "Surplus a");
+    }
+
+    @Test
+    public void safeFormat_generatesError() {
+        final Object argument = new Object() {
+            @Override
+            public String toString() {
+                throw new RuntimeException("X");
+            }
+        };
+        final String text = BrainCheckUtil.safeFormat("Value %s", argument);
+        assertTrue(text.startsWith("Exception generated whilst attempting to format message.\n"
+                + "Template: Value %s\n"
+                + "java.lang.RuntimeException: X\n"));
+    }
+
     @Test
     public void throwableToString() {
         final String text = BrainCheckUtil.throwableToString(new RuntimeException("X"));
         assertTrue(text.startsWith("java.lang.RuntimeException: X\n"));
     }
+
+    @Test
+    public void throwableToString_causesAndSuppressed() {
+        final RuntimeException cause = new RuntimeException("Cause");
+        final RuntimeException throwable = new RuntimeException("X", cause);
+        throwable.addSuppressed(new IllegalArgumentException("Suppressed"));
+
+        final String text = BrainCheckUtil.throwableToString(throwable);
+
+        assertTrue(text.contains("\n  Suppressed: java.lang.IllegalArgumentException: Suppressed\n    at "));
+        assertTrue(text.contains("\nCaused by: java.lang.RuntimeException: Cause\n  at "));
+        // The cause and suppressed exception were created in this method so share all but their first frame
+        assertTrue(text.contains(" more\n"));
+        assertFalse(text.contains("CIRCULAR REFERENCE"));
+    }
+
+    @Test
+    public void throwableToString_circularReference() {
+        final RuntimeException throwable1 = new RuntimeException("A");
+        final RuntimeException throwable2 = new RuntimeException("B", throwable1);
+        throwable1.initCause(throwable2);
+
+        final String text = BrainCheckUtil.throwableToString(throwable2);
+
+        assertTrue(text.contains("\nCaused by: java.lang.RuntimeException: A\n"));
+        assertTrue(text.endsWith("\nCaused by: [CIRCULAR REFERENCE: java.lang.RuntimeException: B]"));
+    }
+
+    @Test
+    public void throwableToString_maxFrames() {
+        final RuntimeException throwable = new RuntimeException("X");
+        final int frameCount = throwable.getStackTrace().length;
+        assertTrue(frameCount > 2);
+
+        final String text = BrainCheckUtil.throwableToString(throwable, 2, Integer.MAX_VALUE);
+
+        int frames = 0;
+        for (int index = text.indexOf("\n  at "); -1 != index; index = text.indexOf("\n  at ", index + 1)) {
+            frames++;
+        }
+        assertEquals(frames, 2);
+        assertTrue(text.endsWith("\n  ... " + (frameCount - 2) + " frames omitted"));
+    }
+
+    @Test
+    public void throwableToString_maxLength() {
+        RuntimeException throwable = new RuntimeException("Root");
+        for (int i = 0; i < 1000; i++) {
+            throwable = new RuntimeException("Level " + i, throwable);
+        }
+
+        final String text = BrainCheckUtil.throwableToString(throwable, 64, 1000);
+
+        assertEquals(text.length(), 1000 + BrainCheckUtil.TRUNCATED_SUFFIX.length());
+        assertTrue(text.endsWith(BrainCheckUtil.TRUNCATED_SUFFIX));
+    }
+
+    @Test
+    public void throwableToString_maxLengthWithLargeMessage() {
+        final String message = "X".repeat(100_000);
+        final RuntimeException throwable = new RuntimeException(message);
+
+        final String text = BrainCheckUtil.throwableToString(throwable, 64, 1000);
+
+        assertEquals(text, "java.lang.RuntimeException: " + "X".repeat(1000 - 28) + BrainCheckUtil.TRUNCATED_SUFFIX);
+    }
+
+    @Test
+    public void throwableToString_exactlyMaxLength() {
+        final RuntimeException throwable = new RuntimeException("X");
+        throwable.setStackTrace(new StackTraceElement[0]);
+
+        assertEquals(BrainCheckUtil.throwableToString(throwable, 64, 29), "java.lang.RuntimeException: X");
+    }
 }
@@ -0,0 +1,95 @@
+package org.realityforge.braincheck;
+
+import static org.testng.Assert.*;
+
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+import org.testng.annotations.Test;
+
+public class FailureRecorderTest extends AbstractTest {
+    @Test
+    public void recordFailures() {
+        BrainCheckConfig.setFailureMode(BrainCheckConfig.FailureMode.RECORD);
+        FailureRecorder.drain();
+
+        final Supplier<String> message = () -> "My Failure Reason";
+        Guards.invariant(() -> false, message);
+        Guards.apiInvariant(false, "Bad value %s", 42);
+        Guards.invariant(
+                (BooleanSupplier) () -> {
+                    throw new IllegalArgumentException("Bang");
+                },
+                message);
+
+        final List<RecordedFailure> failures = FailureRecorder.drain();
+
+        assertEquals(failures.size(), 3);
+        final RecordedFailure failure1 = failures.get(0);
+        assertEquals(failure1.getType(), GuardMetrics.Type.INVARIANT);
+        assertEquals(failure1.getCallSite(), GuardSites.get(message).getName());
+        assertEquals(failure1.getMessage(), "My Failure Reason");
+        assertEquals(failure1.getThreadName(), Thread.currentThread().getName());
+        assertTrue(failure1.getTimestamp() > 0);
+        final RecordedFailure failure2 = failures.get(1);
+        assertEquals(failure2.getType(), GuardMetrics.Type.API_INVARIANT);
+        assertEquals(failure2.getCallSite(), "Bad value %s");
+        assertEquals(failure2.getMessage(), "Bad value 42");
+        final String message3 = failures.get(2).getMessage();
+        assertNotNull(message3);
+        assertTrue(message3.startsWith("Error checking condition.\nMessage: My Failure Reason\n"));
+
+        assertTrue(FailureRecorder.drain().isEmpty());
+    }
+
+    @Test
+    public void recordFailures_verboseErrorMessages_false() {
+        BrainCheckConfig.setFailureMode(BrainCheckConfig.FailureMode.RECORD);
+        BrainCheckConfig.setVerboseErrorMessages(false);
+        FailureRecorder.drain();
+
+        Guards.invariant(false, "Bad value %s", 42);
+
+        final List<RecordedFailure> failures = FailureRecorder.drain();
+        assertEquals(failures.size(), 1);
+        assertEquals(failures.get(0).getCallSite(), "Bad value %s");
+        assertNull(failures.get(0).getMessage());
+    }
+
+    @Test
+    public void recordFailures_failIsThrown() {
+        BrainCheckConfig.setFailureMode(BrainCheckConfig.FailureMode.RECORD);
+        FailureRecorder.drain();
+
+        expectThrows(IllegalStateException.class, () -> Guards.fail(() -> "My Failure Reason"));
+
+        assertTrue(FailureRecorder.drain().isEmpty());
+    }
+
+    @Test
+    public void recordFailures_bufferFull() {
+        BrainCheckConfig.setFailureMode(BrainCheckConfig.FailureMode.RECORD);
+        FailureRecorder.drain();
+        FailureRecorder.resetDroppedCount();
+
+        for (int i = 0; i < FailureRecorder.CAPACITY + 3; i++) {
+            Guards.invariant(false, "Bad value %s", i);
+        }
+
+        final List<RecordedFailure> failures = FailureRecorder.drain();
+        assertEquals(failures.size(), FailureRecorder.CAPACITY);
+        assertEquals(failures.get(0).getMessage(), "Bad value 0");
+        assertEquals(FailureRecorder.resetDroppedCount(), 3);
+        assertEquals(FailureRecorder.resetDroppedCount(), 0);
+    }
+
+    @Test
+    public void logFailures() {
+        BrainCheckConfig.setFailureMode(BrainCheckConfig.FailureMode.LOG);
+        FailureRecorder.drain();
+
+        Guards.invariant(false, "Bad value %s", 42);
+
+        assertTrue(FailureRecorder.drain().isEmpty());
+    }
+}
@@ -0,0 +1,115 @@
+package org.realityforge.braincheck;
+
+import static org.testng.Assert.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.testng.annotations.Test;
+
+public class FlightRecorderTest extends AbstractTest {
+    @Test
+    public void failureEvent() throws Exception {
+        final List<RecordedEvent> events = record("org.realityforge.braincheck.GuardFailure", () -> {
+            assertThrows(
+                    IllegalStateException.class,
+                    () -> Guards.invariant(false, "Test-0001: FlightRecorderTest.failureEvent %s", 42));
+        });
+
+        assertEquals(events.size(), 1);
+        final RecordedEvent event = events.get(0);
+        assertEquals(event.getString("guardType"), "INVARIANT");
+        assertEquals(event.getString("callSite"), "Test-0001: FlightRecorderTest.failureEvent %s");
+        assertEquals(event.getString("caller"), FlightRecorderTest.class.getName());
+        assertEquals(event.getString("messageCode"), "Test-0001");
+        assertEquals(event.getString("message"), "Test-0001: FlightRecorderTest.failureEvent 42");
+        assertFalse(event.getBoolean("suppressed"));
+        assertNotNull(event.getStackTrace());
+    }
+
+    @Test
+    public void failureEventOmitsMessageWhenNotVerbose() throws Exception {
+        BrainCheckConfig.setVerboseErrorMessages(false);
+        final Supplier<String> message = () -> "Test-0002: Secret";
+        final List<RecordedEvent> events = record("org.realityforge.braincheck.GuardFailure", () -> {
+            assertThrows(IllegalStateException.class, () -> Guards.apiInvariant(() -> false, message));
+        });
+
+        assertEquals(events.size(), 1);
+        final RecordedEvent event = events.get(0);
+        assertEquals(event.getString("guardType"), "API_INVARIANT");
+        assertEquals(event.getString("callSite"), GuardSites.get(message).getName());
+        assertNull(event.getString("messageCode"));
+        assertNull(event.getString("message"));
+    }
+
+    @Test
+    public void codedFailureEventWhenNotVerbose() throws Exception {
+        BrainCheckConfig.setVerboseErrorMessages(false);
+        final List<RecordedEvent> events = record("org.realityforge.braincheck.GuardFailure", () -> {
+            assertThrows(IllegalStateException.class, () -> Guards.invariant("Test", 4, () -> false, () -> "Secret"));
+        });
+
+        assertEquals(events.size(), 1);
+        final RecordedEvent event = events.get(0);
+        assertEquals(event.getString("messageCode"), "Test-0004");
+        assertNull(event.getString("message"));
+    }
+
+    @Test
+    public void evaluationEvent() throws Exception {
+        final List<RecordedEvent> events = record("org.realityforge.braincheck.GuardEvaluation", () -> {
+            Guards.invariant(() -> true, () -> "FlightRecorderTest.evaluationEvent");
+            Guards.apiInvariant(v -> v > 0, 1, "Test-0003: FlightRecorderTest.evaluationEvent %s");
+        });
+
+        assertEquals(events.size(), 2);
+        assertEquals(events.get(0).getString("guardType"), "INVARIANT");
+        assertNull(events.get(0).getString("messageCode"));
+        assertEquals(events.get(1).getString("guardType"), "API_INVARIANT");
+        assertEquals(events.get(1).getString("messageCode"), "Test-0003");
+        assertEquals(events.get(1).getString("caller"), FlightRecorderTest.class.getName());
+    }
+
+    @Test
+    public void extractMessageCode() {
+        assertEquals(FlightRecorderUtil.extractMessageCode("Arez-0123: Bad"), "Arez-0123");
+        assertEquals(FlightRecorderUtil.extractMessageCode("My_Lib2-9999: Bad"), "My_Lib2-9999");
+        assertNull(FlightRecorderUtil.extractMessageCode("-0123: Bad"));
+        assertNull(FlightRecorderUtil.extractMessageCode("Arez-012: Bad"));
+        assertNull(FlightRecorderUtil.extractMessageCode("Arez-01a3: Bad"));
+        assertNull(FlightRecorderUtil.extractMessageCode("Ar.ez-0123: Bad"));
+        assertNull(FlightRecorderUtil.extractMessageCode("Bad message"));
+    }
+
+    private static List<RecordedEvent> record(final String eventName, final Runnable action) throws Exception {
+        final Path file = Files.createTempFile("braincheck", ".jfr");
+        try {
+            final Recording recording = new Recording();
+            try {
+                recording.enable(eventName).withThreshold(Duration.ZERO);
+                recording.start();
+                action.run();
+                recording.stop();
+                recording.dump(file);
+            } finally {
+                recording.close();
+            }
+            final List<RecordedEvent> events = new ArrayList<>();
+            for (final RecordedEvent event : RecordingFile.readAllEvents(file)) {
+                if (event.getEventType().getName().equals(eventName)) {
+                    events.add(event);
+                }
+            }
+            return events;
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package org.realityforge.braincheck;
+
+import static org.testng.Assert.*;
+
+import java.util.Map;
+import java.util.function.Supplier;
+import org.testng.annotations.Test;
+
+public class GuardLevelsTest extends AbstractTest {
+    @Test
+    public void parse() {
+        final Map<String, GuardLevels.Level> levels =
+                GuardLevels.parse(" com.example = all,com.example.thirdparty=NONE,, org.Foo$Bar=api,=none");
+
+        assertEquals(levels.size(), 4);
+        assertEquals(levels.get("com.example"), GuardLevels.Level.ALL);
+        assertEquals(levels.get("com.example.thirdparty"), GuardLevels.Level.NONE);
+        assertEquals(levels.get("org.Foo$Bar"), GuardLevels.Level.API);
+        assertEquals(levels.get(""), GuardLevels.Level.NONE);
+        assertTrue(GuardLevels.parse("").isEmpty());
+    }
+
+    @Test
+    public void parse_invalid() {
+        for (final String value : new String[] {"com.example", "com.example=on", "com.example=all,x"}) {
+            final IllegalStateException exception =
+                    expectThrows(IllegalStateException.class, () -> GuardLevels.parse(value));
+            assertEquals(
+                    exception.getMessage(),
+                    "Invalid value '" + value + "' specified for setting braincheck.guard_levels. Expected a comma "
+                            + "separated list of entries of the form 'name=level' where level is one of "
+                            + "'none', 'api' or 'all'");
+        }
+    }
+
+    @Test
+    public void resolve() {
+        BrainCheckConfig.setGuardLevels("com.example=all,com.example.thirdparty=none,com.example.thirdparty.Foo=api");
+
+        assertEquals(GuardLevels.resolve("com.example.Foo"), GuardLevels.Level.ALL);
+        assertEquals(GuardLevels.resolve("com.example.thirdparty.Bar"), GuardLevels.Level.NONE);
+        assertEquals(GuardLevels.resolve("com.example.thirdparty.Foo"), GuardLevels.Level.API);
+        assertEquals(GuardLevels.resolve("com.example.thirdparty.Foo$Inner"), GuardLevels.Level.API);
+        assertNull(GuardLevels.resolve("org.other.Foo"));
+        assertNull(GuardLevels.resolve("com.examples.Foo"));
+
+        BrainCheckConfig.setGuardLevels("=api");
+
+        assertEquals(GuardLevels.resolve("org.other.Foo"), GuardLevels.Level.API);
+    }
+
+    @Test
+    public void siteOwnerIsResolved() {
+        // Sites are only resolved by guards when a feature that requires them is enabled
+        BrainCheckConfig.setGuardLevels("com.example=none");
+
+        final Supplier<String> message = () -> "X";
+        Guards.invariant(() -> true, message);
+        Guards.invariant(true, "GuardLevelsTest.siteOwnerIsResolved %s", 1);
+
+        assertEquals(GuardSites.get(message).getOwnerName(), GuardLevelsTest.class.getName());
+        assertEquals(
+                GuardSites.get("GuardLevelsTest.siteOwnerIsResolved %s").getOwnerName(),
+                GuardLevelsTest.class.getName());
+    }
+
+    @Test
+    public void templateSitesAreOwnedByFirstClass() {
+        BrainCheckConfig.setGuardLevels("org.realityforge.braincheck.GuardLevelsTest=none");
+
+        final String messageTemplate = "GuardLevelsTest.templateSitesAreOwnedByFirstClass %s";
+        Guards.invariant(false, messageTemplate, 1);
+        // The site is found by the template alone so the level of the class that first used it applies
+        TemplateGuards.invariant(false, messageTemplate, 1);
+        assertEquals(GuardSites.get(messageTemplate).getOwnerName(), GuardLevelsTest.class.getName());
+    }
+
+    @Test
+    public void guardLevelsOverrideGlobalConfig() {
+        BrainCheckConfig.setCheckInvariants(false);
+        BrainCheckConfig.setGuardLevels("org.realityforge.braincheck.GuardLevelsTest=all");
+
+        expectThrows(IllegalStateException.class, () -> Guards.invariant(() -> false, () -> "A"));
+        expectThrows(
+                IllegalStateException.class,
+                () -> Guards.invariant(false, "GuardLevelsTest.guardLevelsOverrideGlobalConfig %s", 1));
+
+        BrainCheckConfig.setCheckInvariants(true);
+        BrainCheckConfig.setGuardLevels("org.realityforge.braincheck=api");
+
+        Guards.invariant(() -> false, () -> "A");
+        Guards.invariant(false, "GuardLevelsTest.guardLevelsOverrideGlobalConfig %s", 1);
+        Guards.cheapInvariant(() -> false, () -> "B");
+        expectThrows(IllegalStateException.class, () -> Guards.apiInvariant(() -> false, () -> "C"));
+
+        BrainCheckConfig.setGuardLevels("org.realityforge=none");
+
+        Guards.apiInvariant(() -> false, () -> "C");
+        // An active scope enables checks regardless of the guard level
+        InvariantScope.run(() -> expectThrows(
+                IllegalStateException.class, () -> Guards.apiInvariant(() -> false, () -> "C")));
+    }
+}
@@ -0,0 +1,145 @@
+package org.realityforge.braincheck;
+
+import static org.testng.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+import org.testng.annotations.Test;
+
+public class GuardMetricsTest extends AbstractTest {
+    @Test
+    public void metricsNotCollectedByDefault() {
+        GuardMetrics.reset();
+
+        final Supplier<String> message = () -> "X";
+        Guards.invariant(() -> true, message);
+
+        assertEquals(GuardMetrics.snapshot()
+                .getTotal(GuardMetrics.Type.INVARIANT)
+                .getEvaluationCount(), 0);
+        final String siteNamePrefix = GuardMetricsTest.class.getName() + ".metricsNotCollectedByDefault";
+        for (final GuardMetrics.Counts site : GuardMetrics.snapshot().getCallSites()) {
+            assertFalse(site.getName().startsWith(siteNamePrefix), site.getName());
+        }
+    }
+
+    @Test
+    public void collectMetrics() {
+        BrainCheckConfig.setCollectMetrics(true);
+        GuardMetrics.reset();
+
+        final Supplier<String> message = () -> "X";
+        final String messageTemplate = "Template %s";
+        for (int i = 0; i < 3; i++) {
+            Guards.invariant(() -> true, message);
+            Guards.apiInvariant(true, messageTemplate, i);
+        }
+        expectThrows(IllegalStateException.class, () -> Guards.invariant(() -> false, message));
+        expectThrows(IllegalStateException.class, () -> Guards.invariant((BooleanSupplier) () -> {
+            throw new IllegalArgumentException();
+        }, message));
+        expectThrows(IllegalStateException.class, () -> Guards.fail(() -> "Y"));
+
+        final GuardMetrics.Snapshot snapshot = GuardMetrics.snapshot();
+
+        final GuardMetrics.Counts invariants = snapshot.getTotal(GuardMetrics.Type.INVARIANT);
+        assertEquals(invariants.getType(), GuardMetrics.Type.INVARIANT);
+        assertEquals(invariants.getEvaluationCount(), 5);
+        assertEquals(invariants.getFailureCount(), 1);
+        assertEquals(invariants.getConditionExceptionCount(), 1);
+
+        final GuardMetrics.Counts apiInvariants = snapshot.getTotal(GuardMetrics.Type.API_INVARIANT);
+        assertEquals(apiInvariants.getEvaluationCount(), 3);
+        assertEquals(apiInvariants.getFailureCount(), 0);
+
+        final GuardMetrics.Counts fails = snapshot.getTotal(GuardMetrics.Type.FAIL);
+        assertEquals(fails.getEvaluationCount(), 0);
+        assertEquals(fails.getFailureCount(), 1);
+
+        final GuardMetrics.Counts site = snapshot.findCallSite(GuardSites.get(message).getName());
+        assertNotNull(site);
+        assertEquals(site.getType(), GuardMetrics.Type.INVARIANT);
+        assertEquals(site.getEvaluationCount(), 5);
+        assertEquals(site.getFailureCount(), 1);
+        assertEquals(site.getConditionExceptionCount(), 1);
+
+        final GuardMetrics.Counts templateSite = snapshot.findCallSite(messageTemplate);
+        assertNotNull(templateSite);
+        assertEquals(templateSite.getType(), GuardMetrics.Type.API_INVARIANT);
+        assertEquals(templateSite.getEvaluationCount(), 3);
+
+        GuardMetrics.reset();
+
+        final GuardMetrics.Snapshot resetSnapshot = GuardMetrics.snapshot();
+        assertEquals(resetSnapshot.getTotal(GuardMetrics.Type.INVARIANT).getEvaluationCount(), 0);
+        final GuardMetrics.Counts resetSite = resetSnapshot.findCallSite(GuardSites.get(message).getName());
+        assertNotNull(resetSite);
+        assertEquals(resetSite.getEvaluationCount(), 0);
+    }
+
+    @Test
+    public void collectMetrics_codedGuard() {
+        BrainCheckConfig.setCollectMetrics(true);
+        GuardMetrics.reset();
+
+        final Supplier<String> message = () -> "X";
+        Guards.apiInvariant("Test", 12, () -> true, message);
+
+        final GuardMetrics.Snapshot snapshot = GuardMetrics.snapshot();
+        final GuardMetrics.Counts site = snapshot.findCallSite(GuardSites.get(message).getName());
+        assertNotNull(site);
+        assertEquals(site.getCode(), "Test-0012");
+        assertEquals(site.getEvaluationCount(), 1);
+        assertNull(snapshot.getTotal(GuardMetrics.Type.API_INVARIANT).getCode());
+    }
+
+    @Test
+    public void collectMetrics_suppressedFailures() {
+        BrainCheckConfig.setCollectMetrics(true);
+        BrainCheckConfig.setFailureThreshold(1);
+        BrainCheckConfig.setFailureWindow(60_000);
+        GuardMetrics.reset();
+
+        final Supplier<String> message = () -> "X";
+        for (int i = 0; i < 3; i++) {
+            expectThrows(IllegalStateException.class, () -> Guards.apiInvariant(() -> false, message));
+        }
+
+        final GuardMetrics.Snapshot snapshot = GuardMetrics.snapshot();
+        final GuardMetrics.Counts site = snapshot.findCallSite(GuardSites.get(message).getName());
+        assertNotNull(site);
+        assertEquals(site.getFailureCount(), 3);
+        assertEquals(site.getSuppressedFailureCount(), 2);
+        assertEquals(
+                snapshot.getTotal(GuardMetrics.Type.API_INVARIANT).getSuppressedFailureCount(), 2);
+    }
+
+    @Test
+    public void collectMetrics_concurrently() throws Exception {
+        BrainCheckConfig.setCollectMetrics(true);
+        GuardMetrics.reset();
+
+        final int threadCount = 4;
+        final int iterations = 10000;
+        final Supplier<String> message = () -> "X";
+        final List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < threadCount; i++) {
+            final Thread thread = new Thread(() -> {
+                for (int j = 0; j < iterations; j++) {
+                    Guards.invariant(() -> true, message);
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+
+        final GuardMetrics.Counts site = GuardMetrics.snapshot().findCallSite(GuardSites.get(message).getName());
+        assertNotNull(site);
+        assertEquals(site.getEvaluationCount(), threadCount * iterations);
+    }
+}
@@ -0,0 +1,120 @@
+package org.realityforge.braincheck;
+
+import static org.testng.Assert.*;
+
+import java.util.function.Supplier;
+import org.testng.annotations.Test;
+
+public class GuardProfilerTest extends AbstractTest {
+    @Test
+    public void notProfiledByDefault() {
+        GuardProfiler.reset();
+
+        final Supplier<String> message = () -> "X";
+        Guards.invariant(() -> true, message);
+
+        final String siteNamePrefix = GuardProfilerTest.class.getName() + ".notProfiledByDefault";
+        for (final GuardProfiler.Profile profile : GuardProfiler.snapshot().getCallSites()) {
+            assertFalse(profile.getName().startsWith(siteNamePrefix), profile.getName());
+        }
+    }
+
+    @Test
+    public void profileInvariants() {
+        BrainCheckConfig.setProfileInvariants(true);
+        GuardProfiler.reset();
+
+        final Supplier<String> message = () -> "X";
+        for (int i = 0; i < 3; i++) {
+            Guards.invariant(() -> true, message);
+        }
+        Guards.apiInvariant(v -> v > 0, 1, "GuardProfilerTest.profileInvariants %s");
+
+        final GuardProfiler.Snapshot snapshot = GuardProfiler.snapshot();
+        final GuardProfiler.Profile profile = snapshot.findCallSite(GuardSites.get(message).getName());
+        assertNotNull(profile);
+        assertEquals(profile.getType(), GuardMetrics.Type.INVARIANT);
+        assertEquals(profile.getEvaluationCount(), 3);
+        assertFalse(profile.isDemoted());
+        long bucketTotal = 0;
+        for (final long count : profile.getBuckets()) {
+            bucketTotal += count;
+        }
+        assertEquals(bucketTotal, 3);
+        assertTrue(profile.getMaxNanos() <= profile.getTotalNanos());
+
+        final GuardProfiler.Profile templateProfile =
+                snapshot.findCallSite("GuardProfilerTest.profileInvariants %s");
+        assertNotNull(templateProfile);
+        assertEquals(templateProfile.getType(), GuardMetrics.Type.API_INVARIANT);
+        assertEquals(templateProfile.getEvaluationCount(), 1);
+        assertEquals(snapshot.getDemotionCount(), 0);
+    }
+
+    @Test
+    public void bucketIndex() {
+        assertEquals(GuardProfile.bucketIndex(0), 0);
+        assertEquals(GuardProfile.bucketIndex(1), 1);
+        assertEquals(GuardProfile.bucketIndex(3), 2);
+        assertEquals(GuardProfile.bucketIndex(4), 3);
+        assertEquals(GuardProfile.bucketIndex(Long.MAX_VALUE), GuardProfile.BUCKET_COUNT - 1);
+        assertEquals(GuardProfiler.getBucketUpperBound(2), 4);
+    }
+
+    @Test
+    public void siteExceedingBudgetIsDemoted() {
+        BrainCheckConfig.setProfileInvariants(true);
+        BrainCheckConfig.setInvariantBudget(1);
+        GuardProfiler.reset();
+
+        final int[] evaluationCount = new int[1];
+        final Supplier<String> message = () -> "X";
+        Guards.invariant(
+                () -> {
+                    evaluationCount[0]++;
+                    sleep();
+                    return true;
+                },
+                message);
+
+        assertTrue(GuardSites.get(message).isDemoted());
+        final GuardProfiler.Snapshot snapshot = GuardProfiler.snapshot();
+        final GuardProfiler.Profile profile = snapshot.findCallSite(GuardSites.get(message).getName());
+        assertNotNull(profile);
+        assertTrue(profile.isDemoted());
+        assertEquals(snapshot.getDemotionCount(), 1);
+
+        for (int i = 0; i < 1000; i++) {
+            Guards.invariant(
+                    () -> {
+                        evaluationCount[0]++;
+                        return true;
+                    },
+                    message);
+        }
+        assertTrue(evaluationCount[0] < 200);
+
+        GuardProfiler.reset();
+
+        assertFalse(GuardSites.get(message).isDemoted());
+    }
+
+    @Test
+    public void budgetWindowStartsAfterEachSecond() {
+        final GuardProfile profile = new GuardProfile();
+        final long start = System.nanoTime();
+
+        assertEquals(profile.addToWindow(start, 10), 10);
+        assertEquals(profile.addToWindow(start + 1, 15), 25);
+        assertEquals(profile.addToWindow(start + GuardProfile.BUDGET_WINDOW_NANOS * 2, 5), 5);
+        assertEquals(profile.addToWindow(start + GuardProfile.BUDGET_WINDOW_NANOS * 2 + 1, 5), 10);
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(5);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
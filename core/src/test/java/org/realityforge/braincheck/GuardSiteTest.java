@@ -0,0 +1,148 @@
+package org.realityforge.braincheck;
+
+import static org.testng.Assert.*;
+
+import java.util.function.Supplier;
+import org.testng.annotations.Test;
+
+public class GuardSiteTest extends AbstractTest {
+    @Test
+    public void shouldCheckAdaptively() {
+        final GuardSite site = new GuardSite("MySite");
+
+        assertEquals(site.getName(), "MySite");
+        assertEquals(countChecks(site, GuardSite.EVALUATIONS_PER_LEVEL), GuardSite.EVALUATIONS_PER_LEVEL);
+        assertEquals(countChecks(site, GuardSite.EVALUATIONS_PER_LEVEL * 2), GuardSite.EVALUATIONS_PER_LEVEL);
+        assertEquals(countChecks(site, GuardSite.EVALUATIONS_PER_LEVEL * 4), GuardSite.EVALUATIONS_PER_LEVEL);
+    }
+
+    @Test
+    public void shouldCheckAdaptively_intervalIsBounded() {
+        final GuardSite site = new GuardSite("MySite");
+
+        final int maxInterval = 1 << GuardSite.MAX_LEVEL;
+        countChecks(site, GuardSite.EVALUATIONS_PER_LEVEL * maxInterval * 2);
+
+        assertEquals(countChecks(site, maxInterval * 10), 10);
+    }
+
+    @Test
+    public void onFailure_resetsFrequency() {
+        final GuardSite site = new GuardSite("MySite");
+
+        countChecks(site, GuardSite.EVALUATIONS_PER_LEVEL * 3);
+        assertTrue(countChecks(site, 8) < 8);
+
+        site.onFailure();
+
+        assertEquals(countChecks(site, 8), 8);
+    }
+
+    @Test
+    public void configChange_resetsFrequency() {
+        final GuardSite site = new GuardSite("MySite");
+
+        countChecks(site, GuardSite.EVALUATIONS_PER_LEVEL * 3);
+        assertTrue(countChecks(site, 8) < 8);
+
+        BrainCheckConfig.setVerboseErrorMessages(false);
+
+        assertEquals(countChecks(site, 8), 8);
+    }
+
+    @Test
+    public void sitesAreResolvedByMessage() {
+        final Supplier<String> message1 = () -> "A";
+        final Supplier<String> message2 = () -> "B";
+
+        assertSame(GuardSites.get(message1), GuardSites.get(message1));
+        assertNotSame(GuardSites.get(message1), GuardSites.get(message2));
+        assertSame(GuardSites.get("Template %s"), GuardSites.get("Template %s"));
+        assertEquals(GuardSites.get("Template %s").getName(), "Template %s");
+    }
+
+    @Test
+    public void supplierSitesAreNamedByFirstGuard() {
+        BrainCheckConfig.setCollectMetrics(true);
+
+        final Supplier<String> message = () -> "A";
+        final int lineNumber = new Throwable().getStackTrace()[0].getLineNumber() + 1;
+        Guards.invariant(() -> true, message);
+
+        assertEquals(
+                GuardSites.get(message).getName(),
+                GuardSiteTest.class.getName() + ".supplierSitesAreNamedByFirstGuard:" + lineNumber);
+    }
+
+    @Test
+    public void templatesBeyondLimitShareOverflowSite() {
+        final int count = GuardSites.TEMPLATE_SITE_COUNT.getAndSet(GuardSites.MAX_TEMPLATE_SITES);
+        try {
+            final long overflowCount = GuardSites.getOverflowCount();
+
+            final GuardSite site = GuardSites.get("GuardSiteTest.templatesBeyondLimitShareOverflowSite A %s");
+
+            assertEquals(site.getName(), GuardSites.OVERFLOW_SITE_NAME);
+            assertSame(GuardSites.get("GuardSiteTest.templatesBeyondLimitShareOverflowSite B %s"), site);
+            assertEquals(GuardSites.getOverflowCount(), overflowCount + 2);
+            assertTrue(GuardSites.getSites().contains(site));
+        } finally {
+            GuardSites.TEMPLATE_SITE_COUNT.addAndGet(count - GuardSites.MAX_TEMPLATE_SITES);
+        }
+    }
+
+    @Test
+    public void adaptiveInvariants() {
+        BrainCheckConfig.setAdaptiveInvariants(true);
+
+        final int[] evaluations = new int[1];
+        final int checkCount = GuardSite.EVALUATIONS_PER_LEVEL * 3;
+        for (int i = 0; i < checkCount; i++) {
+            Guards.invariant(
+                    () -> {
+                        evaluations[0]++;
+                        return true;
+                    },
+                    () -> "My Failure Reason");
+        }
+
+        assertEquals(evaluations[0], GuardSite.EVALUATIONS_PER_LEVEL * 2);
+    }
+
+    @Test
+    public void shouldSuppressFailure() {
+        final GuardSite site = new GuardSite("MySite");
+
+        assertFalse(site.shouldSuppressFailure(2, 60_000));
+        assertFalse(site.shouldSuppressFailure(2, 60_000));
+        assertTrue(site.shouldSuppressFailure(2, 60_000));
+        assertTrue(site.shouldSuppressFailure(2, 60_000));
+
+        // A configuration change restarts the window
+        BrainCheckConfig.setVerboseErrorMessages(false);
+
+        assertFalse(site.shouldSuppressFailure(2, 60_000));
+    }
+
+    @Test
+    public void shouldSuppressFailure_windowElapsed() throws Exception {
+        final GuardSite site = new GuardSite("MySite");
+
+        assertFalse(site.shouldSuppressFailure(1, 1));
+        assertTrue(site.shouldSuppressFailure(1, 60_000));
+
+        Thread.sleep(5);
+
+        assertFalse(site.shouldSuppressFailure(1, 1));
+    }
+
+    private static int countChecks(final GuardSite site, final int checkCount) {
+        int count = 0;
+        for (int i = 0; i < checkCount; i++) {
+            if (site.shouldCheckAdaptively()) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
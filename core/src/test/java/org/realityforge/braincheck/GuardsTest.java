@@ -2,7 +2,14 @@ package org.realityforge.braincheck;
 
 import static org.testng.Assert.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
 import org.testng.annotations.Test;
 
 public class GuardsTest extends AbstractTest {
@@ -22,6 +29,78 @@ public class GuardsTest extends AbstractTest {
                 expectThrows(IllegalStateException.class, () -> Guards.fail(() -> "My Failure Reason"));
 
         assertNull(exception.getMessage());
+        assertTrue(exception.getStackTrace().length > 0);
+    }
+
+    @Test
+    public void fail_stacklessFailures() {
+        BrainCheckConfig.setVerboseErrorMessages(false);
+        BrainCheckConfig.setStacklessFailures(true);
+
+        final IllegalStateException exception =
+                expectThrows(IllegalStateException.class, () -> Guards.fail(() -> "My Failure Reason"));
+
+        assertNull(exception.getMessage());
+        assertEquals(exception.getStackTrace().length, 0);
+    }
+
+    @Test
+    public void fail_stacklessFailures_verboseErrorMessages_true() {
+        BrainCheckConfig.setStacklessFailures(true);
+
+        final IllegalStateException exception =
+                expectThrows(IllegalStateException.class, () -> Guards.fail(() -> "My Failure Reason"));
+
+        assertEquals(exception.getMessage(), "My Failure Reason");
+        assertTrue(exception.getStackTrace().length > 0);
+    }
+
+    @Test
+    public void fail_failureThreshold() {
+        BrainCheckConfig.setFailureThreshold(2);
+        BrainCheckConfig.setFailureWindow(60_000);
+
+        final int[] renderCount = new int[1];
+        final Supplier<String> message = () -> {
+            renderCount[0]++;
+            return "My Failure Reason";
+        };
+        for (int i = 0; i < 2; i++) {
+            final IllegalStateException exception =
+                    expectThrows(IllegalStateException.class, () -> Guards.fail(message));
+            assertEquals(exception.getMessage(), "My Failure Reason");
+            assertTrue(exception.getStackTrace().length > 0);
+        }
+        for (int i = 0; i < 3; i++) {
+            final IllegalStateException exception =
+                    expectThrows(IllegalStateException.class, () -> Guards.fail(message));
+            assertEquals(exception.getMessage(), FailureUtil.SUPPRESSED_FAILURE_MESSAGE);
+            assertEquals(exception.getStackTrace().length, 0);
+        }
+
+        assertEquals(renderCount[0], 2);
+    }
+
+    @Test
+    public void invariant_failureThreshold() {
+        BrainCheckConfig.setFailureThreshold(1);
+        BrainCheckConfig.setFailureWindow(60_000);
+        BrainCheckConfig.setVerboseErrorMessages(false);
+
+        final String messageTemplate = "Governed value %s";
+        final IllegalStateException exception1 =
+                expectThrows(IllegalStateException.class, () -> Guards.invariant(false, messageTemplate, 1));
+        final IllegalStateException exception2 =
+                expectThrows(IllegalStateException.class, () -> Guards.invariant(false, messageTemplate, 2));
+        // A different call site is not affected
+        final IllegalStateException exception3 =
+                expectThrows(IllegalStateException.class, () -> Guards.invariant(false, "Other value %s", 3));
+
+        assertNull(exception1.getMessage());
+        assertTrue(exception1.getStackTrace().length > 0);
+        assertNull(exception2.getMessage());
+        assertEquals(exception2.getStackTrace().length, 0);
+        assertTrue(exception3.getStackTrace().length > 0);
     }
 
     @Test
@@ -37,12 +116,63 @@ public class GuardsTest extends AbstractTest {
         assertEquals(exception.getMessage(), "My Failure Reason");
     }
 
+    @Test
+    public void invariant_coded_failed() {
+        final IllegalStateException exception = expectThrows(
+                IllegalStateException.class,
+                () -> Guards.invariant("Arez", 12, () -> false, () -> "My Failure Reason"));
+
+        assertEquals(exception.getMessage(), "Arez-0012: My Failure Reason");
+    }
+
+    @Test
+    public void apiInvariant_coded_failed() {
+        Guards.apiInvariant("Arez", 1, () -> true, () -> "My Failure Reason");
+
+        final IllegalStateException exception = expectThrows(
+                IllegalStateException.class,
+                () -> Guards.apiInvariant("Arez", 12345, () -> false, () -> "My Failure Reason"));
+
+        assertEquals(exception.getMessage(), "Arez-12345: My Failure Reason");
+    }
+
+    @Test
+    public void fail_coded() {
+        final IllegalStateException exception =
+                expectThrows(IllegalStateException.class, () -> Guards.fail("Arez", 7, () -> "My Failure Reason"));
+
+        assertEquals(exception.getMessage(), "Arez-0007: My Failure Reason");
+    }
+
+    @Test
+    public void fail_coded_verboseErrorMessages_false() {
+        BrainCheckConfig.setVerboseErrorMessages(false);
+
+        final IllegalStateException exception =
+                expectThrows(IllegalStateException.class, () -> Guards.fail("Arez", 7, () -> "My Failure Reason"));
+
+        assertEquals(exception.getMessage(), "Arez-0007");
+    }
+
+    @Test
+    public void invariant_coded_verboseErrorMessages_false_stacklessFailures() {
+        BrainCheckConfig.setVerboseErrorMessages(false);
+        BrainCheckConfig.setStacklessFailures(true);
+
+        final IllegalStateException exception = expectThrows(
+                IllegalStateException.class,
+                () -> Guards.invariant("Arez", 12, () -> false, () -> "My Failure Reason"));
+
+        assertEquals(exception.getMessage(), "Arez-0012");
+        assertEquals(exception.getStackTrace().length, 0);
+    }
+
     @Test
     public void invariant_condition_throws_exception() {
         final IllegalStateException exception = expectThrows(
                 IllegalStateException.class,
                 () -> Guards.invariant(
-                        () -> {
+                        (BooleanSupplier) () -> {
                             throw new RuntimeException("X");
                         },
                         () -> "My Failure Reason"));
@@ -53,6 +183,21 @@ public class GuardsTest extends AbstractTest {
                 + "java.lang.RuntimeException: X"));
     }
 
+    @Test
+    public void invariant_boxedCondition_passed() {
+        final Supplier<Boolean> condition = () -> Boolean.TRUE;
+        Guards.invariant(condition, () -> "My Failure Reason");
+    }
+
+    @Test
+    public void invariant_boxedCondition_failed() {
+        final Supplier<Boolean> condition = () -> Boolean.FALSE;
+        final IllegalStateException exception = expectThrows(
+                IllegalStateException.class, () -> Guards.invariant(condition, () -> "My Failure Reason"));
+
+        assertEquals(exception.getMessage(), "My Failure Reason");
+    }
+
     @Test
     public void invariant_verboseErrorMessages_false() {
         BrainCheckConfig.setVerboseErrorMessages(false);
@@ -89,7 +234,7 @@ public class GuardsTest extends AbstractTest {
         final IllegalStateException exception = expectThrows(
                 IllegalStateException.class,
                 () -> Guards.apiInvariant(
-                        () -> {
+                        (BooleanSupplier) () -> {
                             throw new RuntimeException("X");
                         },
                         () -> "My Failure Reason"));
@@ -100,6 +245,15 @@ public class GuardsTest extends AbstractTest {
                 + "java.lang.RuntimeException: X"));
     }
 
+    @Test
+    public void apiInvariant_boxedCondition_failed() {
+        final Supplier<Boolean> condition = () -> Boolean.FALSE;
+        final IllegalStateException exception = expectThrows(
+                IllegalStateException.class, () -> Guards.apiInvariant(condition, () -> "My Failure Reason"));
+
+        assertEquals(exception.getMessage(), "My Failure Reason");
+    }
+
     @Test
     public void apiInvariant_verboseErrorMessages_false() {
         BrainCheckConfig.setVerboseErrorMessages(false);
@@ -127,4 +281,213 @@ public class GuardsTest extends AbstractTest {
 
         assertEquals(exception.getMessage(), "My Failure Reason");
     }
+
+    @Test
+    public void invariant_template_passed() {
+        Guards.invariant(true, "Bad value %s", 1);
+        Guards.invariant(true, "Bad values %s %s", 1, 2);
+        Guards.invariant(true, "Bad values %s %s %s", 1, 2, 3);
+        Guards.invariant(true, "Bad values %s %s %s %s", 1, 2, 3, 4);
+    }
+
+    @Test
+    public void invariant_template_failed() {
+        final IllegalStateException exception = expectThrows(
+                IllegalStateException.class, () -> Guards.invariant(false, "Bad values %s %s %s %s", 1, "b", null, 4));
+
+        assertEquals(exception.getMessage(), "Bad values 1 b null 4");
+    }
+
+    @Test
+    public void invariant_template_failed_rendersMessageOnDemand() throws Exception {
+        final AtomicInteger renderCount = new AtomicInteger();
+        final Object value = new Object() {
+            @Override
+            public String toString() {
+                return "X" + renderCount.incrementAndGet();
+            }
+        };
+
+        final IllegalStateException exception =
+                expectThrows(IllegalStateException.class, () -> Guards.invariant(false, "Bad value %s", value));
+
+        assertEquals(renderCount.get(), 0);
+        assertEquals(exception.getMessage(), "Bad value X1");
+        assertEquals(exception.getMessage(), "Bad value X1");
+        assertEquals(renderCount.get(), 1);
+
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (final ObjectOutputStream out = new ObjectOutputStream(output)) {
+            out.writeObject(exception);
+        }
+        try (final ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(output.toByteArray()))) {
+            final IllegalStateException deserialized = (IllegalStateException) in.readObject();
+            assertEquals(deserialized.getMessage(), "Bad value X1");
+            assertEquals(deserialized.getStackTrace().length, exception.getStackTrace().length);
+        }
+    }
+
+    @Test
+    public void invariant_template_verboseErrorMessages_false() {
+        BrainCheckConfig.setVerboseErrorMessages(false);
+
+        final IllegalStateException exception =
+                expectThrows(IllegalStateException.class, () -> Guards.invariant(false, "Bad value %s", 1));
+
+        assertNull(exception.getMessage());
+    }
+
+    @Test
+    public void invariant_template_stacklessFailures() {
+        BrainCheckConfig.setVerboseErrorMessages(false);
+        BrainCheckConfig.setStacklessFailures(true);
+
+        final IllegalStateException exception1 =
+                expectThrows(IllegalStateException.class, () -> Guards.invariant(false, "Bad value %s", 1));
+        final IllegalStateException exception2 =
+                expectThrows(IllegalStateException.class, () -> Guards.apiInvariant(() -> false, () -> "Bad"));
+
+        assertNull(exception1.getMessage());
+        assertEquals(exception1.getStackTrace().length, 0);
+        assertNull(exception2.getMessage());
+        assertEquals(exception2.getStackTrace().length, 0);
+    }
+
+    @Test
+    public void invariant_template_checkInvariants_false() {
+        BrainCheckConfig.setCheckInvariants(false);
+
+        // No failure
+        Guards.invariant(false, "Bad value %s", 1);
+    }
+
+    @Test
+    public void invariant_predicate() {
+        Guards.invariant(GuardsTest::isPositive, 1, "Bad value %s");
+
+        final IllegalStateException exception = expectThrows(
+                IllegalStateException.class, () -> Guards.invariant(GuardsTest::isPositive, -3, "Bad value %s"));
+
+        assertEquals(exception.getMessage(), "Bad value -3");
+    }
+
+    @Test
+    public void invariant_predicate_checkInvariants_false() {
+        BrainCheckConfig.setCheckInvariants(false);
+
+        // Predicate is never invoked
+        Guards.invariant(
+                v -> {
+                    throw new RuntimeException("X");
+                },
+                1,
+                "Bad value %s");
+    }
+
+    @Test
+    public void invariant_predicate_throws_exception() {
+        final IllegalStateException exception = expectThrows(
+                IllegalStateException.class,
+                () -> Guards.invariant(
+                        v -> {
+                            throw new RuntimeException("X");
+                        },
+                        1,
+                        "Bad value %s"));
+
+        final String message = Objects.requireNonNull(exception.getMessage());
+        assertTrue(message.startsWith("Error checking condition.\n" + "Message: Bad value 1\n"
+                + "Throwable:\n"
+                + "java.lang.RuntimeException: X"));
+    }
+
+    @Test
+    public void apiInvariant_template_failed() {
+        final IllegalStateException exception = expectThrows(
+                IllegalStateException.class, () -> Guards.apiInvariant(false, "Bad values %s %s", "a", 2));
+
+        assertEquals(exception.getMessage(), "Bad values a 2");
+    }
+
+    @Test
+    public void apiInvariant_template_checkApiInvariants_false() {
+        BrainCheckConfig.setCheckApiInvariants(false);
+
+        // No failure
+        Guards.apiInvariant(false, "Bad value %s", 1);
+    }
+
+    @Test
+    public void apiInvariant_predicate() {
+        Guards.apiInvariant(GuardsTest::isPositive, 1, "Bad value %s");
+
+        final IllegalStateException exception = expectThrows(
+                IllegalStateException.class, () -> Guards.apiInvariant(GuardsTest::isPositive, 0, "Bad value %s"));
+
+        assertEquals(exception.getMessage(), "Bad value 0");
+    }
+
+    @Test
+    public void invariant_sampled() {
+        BrainCheckConfig.setInvariantSampleRate(10);
+
+        final int[] evaluations = new int[1];
+        for (int i = 0; i < 10000; i++) {
+            Guards.invariant(
+                    () -> {
+                        evaluations[0]++;
+                        return true;
+                    },
+                    () -> "My Failure Reason");
+        }
+
+        assertTrue(evaluations[0] > 500 && evaluations[0] < 2000, "Unexpected evaluation count " + evaluations[0]);
+    }
+
+    @Test
+    public void invariant_sampled_plainConditionAlwaysChecked() {
+        BrainCheckConfig.setInvariantSampleRate(Integer.MAX_VALUE);
+
+        expectThrows(IllegalStateException.class, () -> Guards.invariant(false, "Bad value %s", 1));
+    }
+
+    @Test
+    public void apiInvariant_sampled() {
+        BrainCheckConfig.setInvariantSampleRate(Integer.MAX_VALUE);
+
+        // Condition skipped with overwhelming probability
+        Guards.apiInvariant(() -> false, () -> "My Failure Reason");
+    }
+
+    private static boolean isPositive(final int value) {
+        return value > 0;
+    }
+
+    @Test
+    public void costClassedInvariants() {
+        assertTrue(BrainCheckConfig.checkCheapInvariants());
+        assertTrue(BrainCheckConfig.checkExpensiveInvariants());
+        assertFalse(BrainCheckConfig.checkParanoidInvariants());
+
+        // Cost classes are independent of the check invariants setting
+        BrainCheckConfig.setCheckInvariants(false);
+
+        final IllegalStateException exception =
+                expectThrows(IllegalStateException.class, () -> Guards.cheapInvariant(() -> false, () -> "Cheap"));
+        assertEquals(exception.getMessage(), "Cheap");
+        expectThrows(IllegalStateException.class, () -> Guards.expensiveInvariant(() -> false, () -> "Expensive"));
+        Guards.paranoidInvariant(() -> false, () -> "Paranoid");
+
+        BrainCheckConfig.setCheckExpensiveInvariants(false);
+        BrainCheckConfig.setCheckParanoidInvariants(true);
+
+        Guards.expensiveInvariant(() -> false, () -> "Expensive");
+        expectThrows(IllegalStateException.class, () -> Guards.paranoidInvariant(() -> false, () -> "Paranoid"));
+
+        BrainCheckConfig.setCheckCheapInvariants(false);
+
+        Guards.cheapInvariant(() -> false, () -> "Cheap");
+        InvariantScope.run(() -> expectThrows(
+                IllegalStateException.class, () -> Guards.expensiveInvariant(() -> false, () -> "Expensive")));
+    }
 }
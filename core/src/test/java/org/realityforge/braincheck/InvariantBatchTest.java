@@ -0,0 +1,99 @@
+package org.realityforge.braincheck;
+
+import static org.testng.Assert.*;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import org.testng.annotations.Test;
+
+public class InvariantBatchTest extends AbstractTest {
+    @Test
+    public void passed() {
+        Guards.invariants().check(() -> true, () -> "A").check(() -> true, () -> "B").verify();
+    }
+
+    @Test
+    public void reportsFirstFailure() {
+        final AtomicInteger evaluations = new AtomicInteger();
+        final InvariantBatch batch = Guards.invariants()
+                .check(() -> evaluations.incrementAndGet() > 0, () -> "A")
+                .check(() -> evaluations.incrementAndGet() < 0, () -> "B")
+                .check(() -> evaluations.incrementAndGet() < 0, () -> "C");
+
+        assertEquals(evaluations.get(), 2);
+
+        final IllegalStateException exception = expectThrows(IllegalStateException.class, batch::verify);
+
+        assertEquals(exception.getMessage(), "B");
+    }
+
+    @Test
+    public void reportAll() {
+        final IllegalStateException exception = expectThrows(
+                IllegalStateException.class,
+                () -> Guards.apiInvariants()
+                        .reportAll()
+                        .check(() -> false, () -> "A")
+                        .check(() -> true, () -> "B")
+                        .check(() -> false, () -> "C")
+                        .verify());
+
+        assertEquals(exception.getMessage(), "2 invariants failed:\n1. A\n2. C");
+    }
+
+    @Test
+    public void disabled() {
+        BrainCheckConfig.setCheckInvariants(false);
+        final AtomicInteger evaluations = new AtomicInteger();
+
+        final InvariantBatch batch = Guards.invariants();
+        batch.reportAll().check(() -> evaluations.incrementAndGet() < 0, () -> "A").verify();
+
+        assertSame(Guards.invariants(), batch);
+        assertEquals(evaluations.get(), 0);
+        // Api invariants are controlled by a separate setting
+        expectThrows(IllegalStateException.class, () -> Guards.apiInvariants()
+                .check(() -> false, () -> "A")
+                .verify());
+    }
+
+    @Test
+    public void guardLevelsApplyToBatch() {
+        BrainCheckConfig.setGuardLevels("org.realityforge.braincheck.InvariantBatchTest=none");
+
+        Guards.invariants().check(() -> false, () -> "A").verify();
+        Guards.apiInvariants().check(() -> false, () -> "A").verify();
+
+        BrainCheckConfig.setCheckInvariants(false);
+        BrainCheckConfig.setGuardLevels("org.realityforge.braincheck=all");
+
+        expectThrows(IllegalStateException.class, () -> Guards.invariants()
+                .check(() -> false, () -> "A")
+                .verify());
+    }
+
+    @Test
+    public void enabledByInvariantScope() {
+        BrainCheckConfig.setCheckInvariants(false);
+
+        final InvariantScope scope = InvariantScope.open();
+        try {
+            expectThrows(IllegalStateException.class, () -> Guards.invariants()
+                    .check(() -> false, () -> "A")
+                    .verify());
+        } finally {
+            scope.close();
+        }
+    }
+
+    @Test
+    public void notifiesListener() {
+        final GuardRecorder recorder = new GuardRecorder();
+        BrainCheckTestUtil.setOnGuardListener(recorder);
+
+        Guards.apiInvariants().check(() -> true, () -> "A").verify();
+
+        assertEquals(
+                recorder.toString(),
+                "API_INVARIANT: A @ org.realityforge.braincheck.InvariantBatchTest:notifiesListener");
+    }
+}
@@ -0,0 +1,92 @@
+package org.realityforge.braincheck;
+
+import static org.testng.Assert.*;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.testng.annotations.Test;
+
+public class InvariantScopeTest extends AbstractTest {
+    @Test
+    public void scopeEnablesChecks() {
+        BrainCheckConfig.setCheckInvariants(false);
+        BrainCheckConfig.setCheckApiInvariants(false);
+
+        Guards.invariant(() -> false, () -> "A");
+        Guards.apiInvariant(false, "B %s", 1);
+        assertFalse(InvariantScope.isActive());
+
+        InvariantScope.run(() -> {
+            assertTrue(InvariantScope.isActive());
+            expectThrows(IllegalStateException.class, () -> Guards.invariant(() -> false, () -> "A"));
+            expectThrows(IllegalStateException.class, () -> Guards.apiInvariant(false, "B %s", 1));
+        });
+
+        assertFalse(InvariantScope.isActive());
+        Guards.invariant(() -> false, () -> "A");
+    }
+
+    @Test
+    public void scopeBypassesSampling() {
+        BrainCheckConfig.setInvariantSampleRate(1_000_000);
+
+        InvariantScope.run(() -> {
+            for (int i = 0; i < 10; i++) {
+                expectThrows(IllegalStateException.class, () -> Guards.invariant(() -> false, () -> "A"));
+            }
+        });
+    }
+
+    @Test
+    public void nestedScopes() {
+        BrainCheckConfig.setCheckInvariants(false);
+
+        final InvariantScope outer = InvariantScope.open();
+        final InvariantScope inner = InvariantScope.open();
+        inner.close();
+        // Closing a second time has no effect
+        inner.close();
+        assertTrue(InvariantScope.isActive());
+        outer.close();
+        assertFalse(InvariantScope.isActive());
+    }
+
+    @Test
+    public void call() {
+        assertTrue(InvariantScope.call(InvariantScope::isActive));
+        assertFalse(InvariantScope.isActive());
+    }
+
+    @Test
+    public void scopeIsThreadLocal() throws Exception {
+        BrainCheckConfig.setCheckInvariants(false);
+
+        final AtomicBoolean otherThreadActive = new AtomicBoolean(true);
+        final InvariantScope scope = InvariantScope.open();
+        final Thread thread = new Thread(() -> {
+            otherThreadActive.set(InvariantScope.isActive());
+            Guards.invariant(() -> false, () -> "A");
+        });
+        thread.start();
+        thread.join();
+        scope.close();
+        assertFalse(otherThreadActive.get());
+    }
+
+    @Test
+    public void closeOnOtherThread() throws Exception {
+        final InvariantScope scope = InvariantScope.open();
+        final AtomicBoolean failed = new AtomicBoolean();
+        final Thread thread = new Thread(() -> {
+            try {
+                scope.close();
+            } catch (final IllegalStateException e) {
+                failed.set(true);
+            }
+        });
+        thread.start();
+        thread.join();
+        assertTrue(failed.get());
+        scope.close();
+        assertFalse(InvariantScope.isActive());
+    }
+}
@@ -11,4 +11,35 @@ public class StackTraceUtilTest extends AbstractTest {
         assertEquals(stackTrace[0].getClassName(), StackTraceUtilTest.class.getName());
         assertEquals(stackTrace[0].getMethodName(), "basicOperation");
     }
+
+    @Test
+    public void boundedStackTrace() {
+        final StackTraceElement[] stackTrace = StackTraceUtil.getStackTrace(1, 2);
+        assertEquals(stackTrace.length, 2);
+        assertEquals(stackTrace[0].getClassName(), StackTraceUtilTest.class.getName());
+        assertEquals(stackTrace[0].getMethodName(), "boundedStackTrace");
+    }
+
+    @Test
+    public void guardStackTrace() {
+        final StackTraceElement[] stackTrace = captureGuardStackTrace(128);
+        assertEquals(stackTrace.length, 64);
+        assertEquals(stackTrace[0].getClassName(), StackTraceUtilTest.class.getName());
+        assertEquals(stackTrace[0].getMethodName(), "captureGuardStackTrace");
+    }
+
+    @Test
+    public void guardStackTrace_configuredFrameCount() {
+        BrainCheckConfig.setGuardStackFrameCount(3);
+
+        assertEquals(captureGuardStackTrace(10).length, 3);
+
+        BrainCheckConfig.setGuardStackFrameCount(0);
+
+        assertTrue(captureGuardStackTrace(100).length > 100);
+    }
+
+    private static StackTraceElement[] captureGuardStackTrace(final int depth) {
+        return 0 == depth ? StackTraceUtil.getGuardStackTrace(1) : captureGuardStackTrace(depth - 1);
+    }
 }
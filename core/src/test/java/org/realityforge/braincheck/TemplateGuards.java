@@ -0,0 +1,12 @@
+package org.realityforge.braincheck;
+
+/**
+ * Invokes guards from a class other than the test so that tests can verify how sites are resolved.
+ */
+final class TemplateGuards {
+    private TemplateGuards() {}
+
+    static void invariant(final boolean condition, final String messageTemplate, final Object arg) {
+        Guards.invariant(condition, messageTemplate, arg);
+    }
+}
@@ -0,0 +1,137 @@
+package org.realityforge.braincheck;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.json.Json;
+import javax.json.JsonArray;
+import javax.json.JsonObject;
+import javax.json.JsonReader;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Decodes the failures of coded guards using the message templates recorded by {@link GuardMessageCollector}.
+ * When verbose error messages are disabled, guards that are passed a structured code fail with a message that
+ * contains only the code in the form <code>"[Key]-####"</code>. This keeps the message templates out of the
+ * production build while the catalog makes it possible to recover the template for any code that appears in an
+ * exception message or a log.
+ *
+ * <p>The catalog may be used from code or from the command line to decode messages offline:</p>
+ *
+ * <pre>
+ * java org.realityforge.braincheck.GuardMessageCatalog Arez diagnostic_messages.json Arez-0012
+ * </pre>
+ *
+ * <p>If no messages are specified on the command line then each line read from standard input is decoded.</p>
+ */
+@GwtIncompatible
+public final class GuardMessageCatalog {
+    private final String _key;
+    private final Map<Integer, String> _messagePatterns;
+    /**
+     * Matches codes with the key that are not already followed by the message.
+     */
+    private final Pattern _codePattern;
+
+    private GuardMessageCatalog(final String key, final Map<Integer, String> messagePatterns) {
+        _key = Objects.requireNonNull(key);
+        _messagePatterns = Collections.unmodifiableMap(messagePatterns);
+        _codePattern = Pattern.compile("\\b" + Pattern.quote(key) + "-(\\d{4,})\\b(?!:)");
+    }
+
+    /**
+     * Load the catalog from a file produced by {@link GuardMessageCollector}.
+     *
+     * @param key  the key of the codes in the catalog.
+     * @param file the file containing the message templates.
+     * @return the catalog.
+     */
+    public static GuardMessageCatalog load(final String key, final File file) {
+        final Map<Integer, String> messagePatterns = new HashMap<>();
+        try (final FileInputStream inputStream = new FileInputStream(file)) {
+            final JsonReader reader = Json.createReader(inputStream);
+            final JsonArray top = reader.readArray();
+            final int size = top.size();
+            for (int i = 0; i < size; i++) {
+                final JsonObject entry = top.getJsonObject(i);
+                messagePatterns.put(entry.getInt("code"), entry.getString("messagePattern"));
+            }
+        } catch (final IOException ioe) {
+            throw new IllegalStateException("Failed to read diagnostic messages file " + file + ".", ioe);
+        }
+        return new GuardMessageCatalog(key, messagePatterns);
+    }
+
+    public String getKey() {
+        return _key;
+    }
+
+    /**
+     * Return the message template for the specified code or null if the catalog does not contain the code.
+     *
+     * @param code the code.
+     * @return the message template or null.
+     */
+    @Nullable
+    public String findMessagePattern(final int code) {
+        return _messagePatterns.get(code);
+    }
+
+    /**
+     * Return the text with each code replaced by the code and the corresponding message template.
+     * Codes that are already followed by a message or are not present in the catalog are left unchanged.
+     * i.e. <code>"java.lang.IllegalStateException: Arez-0012"</code> is decoded as
+     * <code>"java.lang.IllegalStateException: Arez-0012: [Message]"</code>.
+     *
+     * @param text the text to decode such as an exception message or a line from a log.
+     * @return the decoded text.
+     */
+    public String decode(final String text) {
+        final Matcher matcher = _codePattern.matcher(text);
+        final StringBuilder sb = new StringBuilder();
+        while (matcher.find()) {
+            final String messagePattern = findMessagePattern(Integer.parseInt(matcher.group(1)));
+            final String replacement =
+                    null == messagePattern ? matcher.group() : matcher.group() + ": " + messagePattern;
+            matcher.appendReplacement(sb, Matcher.quoteReplacement(replacement));
+        }
+        matcher.appendTail(sb);
+        return sb.toString();
+    }
+
+    /**
+     * Decode messages from the command line.
+     * The arguments are the key, the catalog file and optionally the messages to decode. If no messages
+     * are specified then the lines read from standard input are decoded.
+     *
+     * @param args the command line arguments.
+     * @throws IOException if there is an error reading standard input.
+     */
+    public static void main(final String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: GuardMessageCatalog <key> <catalog-file> [message...]");
+            System.exit(1);
+        }
+        final GuardMessageCatalog catalog = load(args[0], new File(args[1]));
+        if (args.length > 2) {
+            for (int i = 2; i < args.length; i++) {
+                System.out.println(catalog.decode(args[i]));
+            }
+        } else {
+            final BufferedReader reader = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+            String line;
+            while (null != (line = reader.readLine())) {
+                System.out.println(catalog.decode(line));
+            }
+        }
+    }
+}
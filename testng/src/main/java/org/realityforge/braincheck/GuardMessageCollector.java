@@ -15,6 +15,8 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
 import java.util.function.Supplier;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -25,13 +27,17 @@ import javax.json.JsonObject;
 import javax.json.JsonReader;
 import javax.json.stream.JsonGenerator;
 import javax.json.stream.JsonGeneratorFactory;
+import org.jspecify.annotations.Nullable;
 
 /**
  * This class is used by test infrastructure to collect and match all invocations invariant checks
- * in the {@link Guards} class. This class will be invoked any time {@link Guards#invariant(Supplier, Supplier)}
- * is invoked or {@link Guards#apiInvariant(Supplier, Supplier)} is invoked and will receive the message. If
+ * in the {@link Guards} class. This class will be invoked any time
+ * {@link Guards#invariant(BooleanSupplier, Supplier)} is invoked or
+ * {@link Guards#apiInvariant(BooleanSupplier, Supplier)} is invoked and will receive the message. If
  * the message matches the pattern <code>"[Key]-####: [Message]"</code> and this class has been configured to
  * match <code>Key</code> message then this message will be recorded or matched against predefined message template.
+ * Guards invoked via {@link Guards#invariant(String, int, BooleanSupplier, Supplier)} and the other coded
+ * overloads are matched on the key and code directly without parsing the message.
  *
  * <p>The message templates are recorded in a json file. The json contains an array of entries of the
  * form belows. The <code>messagePattern</code> property can also include the value <code>%s</code> which
@@ -91,10 +97,20 @@ import javax.json.stream.JsonGeneratorFactory;
 public final class GuardMessageCollector {
     private final Map<Integer, Message> _messages = new HashMap<>();
     private final String _key;
+    private final String _messagePrefix;
+    private final Pattern _codedMessagePattern;
+    private final BrainCheckTestUtil.OnGuardListener _listener = new Listener();
+    /**
+     * The registrations for thread-scoped listeners keyed by the thread that the test runs on.
+     */
+    private final Map<Thread, BrainCheckTestUtil.ListenerRegistration> _threadRegistrations =
+            new ConcurrentHashMap<>();
     private final File _file;
     private final boolean _saveIfChanged;
     private final boolean _deleteIfUnmatched;
     private final boolean _recordCallers;
+    private final boolean _threadScoped;
+    private BrainCheckTestUtil.@Nullable ListenerRegistration _registration;
     private long _loadTime;
     private int _matchFailureCount;
 
@@ -147,14 +163,39 @@ public final class GuardMessageCollector {
             final boolean saveIfChanged,
             final boolean deleteIfUnmatched,
             final boolean recordCallers) {
+        this(key, file, saveIfChanged, deleteIfUnmatched, recordCallers, false);
+    }
+
+    /**
+     * Create the collector.
+     * A thread-scoped collector only collects the guards invoked on the thread that invoked {@link #onTestStart()}
+     * which makes it possible to use the collector when tests run in parallel.
+     *
+     * @param key               the key/prefix used when selecting messages to match.
+     * @param file              the file expected to contain message templates. This file need not exist if <code>saveIfChanged</code> is <code>true</code>.
+     * @param saveIfChanged     flag set to true if changed message templates should be saved to <code>file</code>.
+     * @param deleteIfUnmatched flag set to true if should delete messages from template if they are unmatched.
+     * @param recordCallers     flag set to true if the methods where invariant messages are located should be stored in the message log.
+     * @param threadScoped      flag set to true if guards should only be collected from the thread running the test.
+     */
+    public GuardMessageCollector(
+            final String key,
+            final File file,
+            final boolean saveIfChanged,
+            final boolean deleteIfUnmatched,
+            final boolean recordCallers,
+            final boolean threadScoped) {
         _key = Objects.requireNonNull(key);
+        _messagePrefix = key + "-";
+        _codedMessagePattern = Pattern.compile("^" + key + "-(\\d\\d\\d\\d): (.*)$");
         _file = Objects.requireNonNull(file);
         _saveIfChanged = saveIfChanged;
         _deleteIfUnmatched = deleteIfUnmatched;
         _recordCallers = recordCallers;
+        _threadScoped = threadScoped;
     }
 
-    public int getMatchFailureCount() {
+    public synchronized int getMatchFailureCount() {
         return _matchFailureCount;
     }
 
@@ -162,7 +203,7 @@ public final class GuardMessageCollector {
      * Hook method that should be invoked before any test starts.
      * This method will load the message templates if the file exists otherwise it will just reset internal state.
      */
-    public void onTestSuiteStart() {
+    public synchronized void onTestSuiteStart() {
         _matchFailureCount = 0;
         loadIfRequired();
     }
@@ -171,14 +212,43 @@ public final class GuardMessageCollector {
      * Hook method that should be invoked before a test starts.
      */
     public void onTestStart() {
-        BrainCheckTestUtil.setOnGuardListener(this::onGuardInvoked);
+        if (_threadScoped) {
+            final BrainCheckTestUtil.ListenerRegistration registration =
+                    BrainCheckTestUtil.addThreadOnGuardListener(_listener);
+            final BrainCheckTestUtil.ListenerRegistration existing =
+                    _threadRegistrations.put(Thread.currentThread(), registration);
+            if (null != existing) {
+                existing.remove();
+            }
+        } else {
+            synchronized (this) {
+                if (null != _registration) {
+                    _registration.remove();
+                }
+                _registration = BrainCheckTestUtil.addOnGuardListener(_listener);
+            }
+        }
     }
 
     /**
      * Hook method that should be invoked after a test completes.
+     * This must be invoked on the same thread as {@link #onTestStart()} if the collector is thread-scoped.
      */
     public void onTestComplete() {
-        BrainCheckTestUtil.setOnGuardListener(null);
+        if (_threadScoped) {
+            final BrainCheckTestUtil.ListenerRegistration registration =
+                    _threadRegistrations.remove(Thread.currentThread());
+            if (null != registration) {
+                registration.remove();
+            }
+        } else {
+            synchronized (this) {
+                if (null != _registration) {
+                    _registration.remove();
+                    _registration = null;
+                }
+            }
+        }
     }
 
     /**
@@ -189,7 +259,7 @@ public final class GuardMessageCollector {
      *
      * @param suiteSuccessful true if test suite completed with no failures, false otherwise.
      */
-    public void onTestSuiteComplete(final boolean suiteSuccessful) {
+    public synchronized void onTestSuiteComplete(final boolean suiteSuccessful) {
         if (needsSave()) {
             if (_saveIfChanged) {
                 save(suiteSuccessful);
@@ -204,10 +274,9 @@ public final class GuardMessageCollector {
         }
     }
 
-    private void onGuardInvoked(
+    private synchronized void onGuardInvoked(
             final BrainCheckTestUtil.GuardType type, final String message, final StackTraceElement[] stackTrace) {
-        final Matcher matcher =
-                Pattern.compile("^" + _key + "-(\\d\\d\\d\\d): (.*)$").matcher(message);
+        final Matcher matcher = _codedMessagePattern.matcher(message);
         if (matcher.matches()) {
             final int code = Integer.parseInt(matcher.group(1));
             final String msg = matcher.group(2);
@@ -216,6 +285,14 @@ public final class GuardMessageCollector {
         }
     }
 
+    private synchronized void onCodedGuardInvoked(
+            final int code,
+            final BrainCheckTestUtil.GuardType type,
+            final String message,
+            final StackTraceElement[] stackTrace) {
+        matchOrRecordDiagnosticMessage(code, type, message, stackTrace[0]);
+    }
+
     private void loadIfRequired() {
         if (_file.exists()) {
             final long lastModified = _file.lastModified();
@@ -393,6 +470,40 @@ public final class GuardMessageCollector {
         }
     }
 
+    /**
+     * The listener only accepts messages that start with the key, or coded guards with the key, so that the stack
+     * trace is not captured for messages that are ignored by this collector. Coded guards are matched on the code
+     * directly without parsing the message.
+     */
+    @GwtIncompatible
+    private final class Listener implements BrainCheckTestUtil.OnGuardListener {
+        @Override
+        public boolean isInterestedIn(final BrainCheckTestUtil.GuardType type, final String message) {
+            return message.startsWith(_messagePrefix);
+        }
+
+        @Override
+        public boolean isInterestedIn(final BrainCheckTestUtil.GuardType type, final String key, final int code) {
+            return _key.equals(key);
+        }
+
+        @Override
+        public void onGuard(
+                final BrainCheckTestUtil.GuardType type, final String message, final StackTraceElement[] stackTrace) {
+            onGuardInvoked(type, message, stackTrace);
+        }
+
+        @Override
+        public void onGuard(
+                final BrainCheckTestUtil.GuardType type,
+                final String key,
+                final int code,
+                final String message,
+                final StackTraceElement[] stackTrace) {
+            onCodedGuardInvoked(code, type, message, stackTrace);
+        }
+    }
+
     /**
      * Class representing a message of a single code.
      */
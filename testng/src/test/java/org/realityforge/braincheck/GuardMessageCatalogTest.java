@@ -0,0 +1,46 @@
+package org.realityforge.braincheck;
+
+import static org.testng.Assert.*;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.testng.annotations.Test;
+
+public class GuardMessageCatalogTest extends AbstractTest {
+    @Test
+    public void decode() throws Exception {
+        final Path file = Files.createTempFile("messages", ".json");
+        file.toFile().deleteOnExit();
+        final String content = "[{\"code\":12,\"type\":\"INVARIANT\",\"messagePattern\":\"Bad value %s\"}]";
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+
+        final GuardMessageCatalog catalog = GuardMessageCatalog.load("Arez", file.toFile());
+
+        assertEquals(catalog.getKey(), "Arez");
+        assertEquals(catalog.findMessagePattern(12), "Bad value %s");
+        assertNull(catalog.findMessagePattern(13));
+        assertEquals(catalog.decode("Arez-0012"), "Arez-0012: Bad value %s");
+        assertEquals(
+                catalog.decode("java.lang.IllegalStateException: Arez-0012"),
+                "java.lang.IllegalStateException: Arez-0012: Bad value %s");
+        assertEquals(catalog.decode("Arez-0012: Bad value 42"), "Arez-0012: Bad value 42");
+        assertEquals(catalog.decode("Arez-0013"), "Arez-0013");
+        assertEquals(catalog.decode("Other-0012"), "Other-0012");
+    }
+
+    @Test
+    public void decodeFailureOfCodedGuard() throws Exception {
+        final Path file = Files.createTempFile("messages", ".json");
+        file.toFile().deleteOnExit();
+        final String content = "[{\"code\":7,\"type\":\"FAIL\",\"messagePattern\":\"Zone not enabled\"}]";
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        final GuardMessageCatalog catalog = GuardMessageCatalog.load("Arez", file.toFile());
+
+        BrainCheckTestUtil.resetConfig(true);
+        final IllegalStateException exception =
+                expectThrows(IllegalStateException.class, () -> Guards.fail("Arez", 7, () -> "Zone not enabled"));
+
+        assertEquals(catalog.decode(String.valueOf(exception.getMessage())), "Arez-0007: Zone not enabled");
+    }
+}
@@ -67,6 +67,23 @@ public class GuardMessageCollectorTest extends AbstractTest {
                 messages, 0, 1234, "INVARIANT", "Some message", "recordMatchingMessage_whenSaveIfChanged");
     }
 
+    @Test
+    public void recordCodedMessage() throws Exception {
+        final Path messageTemplates = getMessageTemplatesFile();
+
+        final GuardMessageCollector collector = new GuardMessageCollector("Arez", messageTemplates.toFile());
+        collector.onTestSuiteStart();
+        collector.onTestStart();
+        Guards.invariant("Arez", 1234, () -> true, () -> "Some message");
+        Guards.invariant("Other", 1, () -> true, () -> "Ignored message");
+        collector.onTestComplete();
+        collector.onTestSuiteComplete(true);
+
+        final JsonArray messages = readMessageTemplates(messageTemplates);
+        assertEquals(messages.size(), 1);
+        assertSingleCallerMessage(messages, 0, 1234, "INVARIANT", "Some message", "recordCodedMessage");
+    }
+
     @Test
     public void existingMessageNotMatchedButTestSuiteHasErrors() throws Exception {
         final Path messageTemplates = getMessageTemplatesFile();
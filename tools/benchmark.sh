@@ -0,0 +1,37 @@
+#!/usr/bin/env bash
+set -euo pipefail
+
+ROOT="$(cd "$(dirname "${BASH_SOURCE[0]}")/.." && pwd)"
+MODE="${1:-record}"
+PACKAGE="//benchmark/src/main/java/org/realityforge/braincheck"
+BASELINE="${ROOT}/benchmark/baseline.json"
+
+case "${MODE}" in
+  record | compare)
+    shift || true
+    ;;
+  *)
+    echo "usage: tools/benchmark.sh [record|compare] [jmh options...]" >&2
+    exit 2
+    ;;
+esac
+
+cd "${ROOT}"
+
+if [[ "${MODE}" == "compare" && ! -f "${BASELINE}" ]]; then
+  echo "No baseline present at ${BASELINE}. Run tools/benchmark.sh record to create one." >&2
+  exit 2
+fi
+
+results="$(mktemp -t braincheck-benchmark.XXXXXX)"
+trap 'rm -f "${results}"' EXIT
+
+# The gc profiler reports the bytes allocated per operation which is compared against the baseline
+bazel run "${PACKAGE}:benchmarks" -- -prof gc -rf json -rff "${results}" "$@"
+
+if [[ "${MODE}" == "record" ]]; then
+  cp "${results}" "${BASELINE}"
+  echo "Recorded baseline at ${BASELINE}"
+else
+  bazel run "${PACKAGE}:compare_baseline" -- "${BASELINE}" "${results}"
+fi